@@ -0,0 +1,95 @@
+package com.mg.nio.benchmark;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sends the same payload over every connection and waits until each one has echoed it back.
+ * Writes and reads are interleaved on one selector, so payloads larger than the socket buffers cannot deadlock.
+ */
+class EchoClient implements AutoCloseable {
+    private final Selector selector;
+    private final List<Slot> slots = new ArrayList<>();
+
+    EchoClient(int port, int connections, int payloadSize) throws IOException {
+        this(new InetSocketAddress("localhost", port), connections, payloadSize);
+    }
+
+    EchoClient(SocketAddress address, int connections, int payloadSize) throws IOException {
+        this.selector = Selector.open();
+        var payload = ByteBuffer.allocateDirect(payloadSize);
+        for (int i = 0; i < payloadSize; i++) {
+            payload.put((byte) ('a' + i % 26));
+        }
+        for (int i = 0; i < connections; i++) {
+            var channel = SocketChannel.open(address);
+            channel.configureBlocking(false);
+            var slot = new Slot(channel, payload.duplicate().flip(), ByteBuffer.allocateDirect(payloadSize));
+            slot.key = channel.register(selector, 0, slot);
+            slots.add(slot);
+        }
+    }
+
+    long roundTrip() throws IOException {
+        var pending = slots.size();
+        for (var slot : slots) {
+            slot.request.rewind();
+            slot.response.clear();
+            slot.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+        var received = 0L;
+        while (pending > 0) {
+            selector.select();
+            var selectedKeys = selector.selectedKeys();
+            for (var key : selectedKeys) {
+                var slot = (Slot) key.attachment();
+                if (key.isWritable()) {
+                    slot.channel.write(slot.request);
+                    if (!slot.request.hasRemaining()) {
+                        key.interestOps(SelectionKey.OP_READ);
+                    }
+                }
+                if (key.isReadable()) {
+                    if (slot.channel.read(slot.response) == -1) {
+                        throw new IOException("Server closed connection before echoing the whole payload");
+                    }
+                    if (!slot.response.hasRemaining()) {
+                        key.interestOps(0);
+                        received += slot.response.get(0);
+                        pending--;
+                    }
+                }
+            }
+            selectedKeys.clear();
+        }
+        return received;
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (var slot : slots) {
+            slot.channel.close();
+        }
+        selector.close();
+    }
+
+    private static class Slot {
+        private final SocketChannel channel;
+        private final ByteBuffer request;
+        private final ByteBuffer response;
+        private SelectionKey key;
+
+        private Slot(SocketChannel channel, ByteBuffer request, ByteBuffer response) {
+            this.channel = channel;
+            this.request = request;
+            this.response = response;
+        }
+    }
+}
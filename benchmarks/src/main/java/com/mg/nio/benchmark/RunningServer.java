@@ -0,0 +1,6 @@
+package com.mg.nio.benchmark;
+
+interface RunningServer extends AutoCloseable {
+    @Override
+    void close();
+}
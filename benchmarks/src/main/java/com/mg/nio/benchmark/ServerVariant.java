@@ -0,0 +1,120 @@
+package com.mg.nio.benchmark;
+
+import com.mg.nio.AsyncEchoServer;
+import com.mg.nio.BlockingEchoServer;
+import com.mg.nio.BlockingNewIoEchoServer;
+import com.mg.nio.MultiSelectorEchoServer;
+import com.mg.nio.SelectorEchoServer;
+import com.mg.nio.handler.ExecutorServiceHandler;
+import com.mg.nio.handler.UppercaseAsyncHandler;
+import com.mg.nio.handler.UppercaseHandler;
+import com.mg.nio.handler.UppercaseNewIoHandler;
+import com.mg.nio.handler.UppercaseSelectionKeyHandler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+
+public enum ServerVariant {
+    BLOCKING {
+        @Override
+        RunningServer start(int port, Runnable onStartedListening) {
+            var server = new BlockingEchoServer(port, new UppercaseHandler(), onStartedListening);
+            server.start();
+            return server::stop;
+        }
+    },
+    BLOCKING_EXECUTOR {
+        @Override
+        RunningServer start(int port, Runnable onStartedListening) {
+            var executor = Executors.newFixedThreadPool(POOL_SIZE);
+            var server = new BlockingEchoServer(port, new ExecutorServiceHandler<>(new UppercaseHandler(), executor), onStartedListening);
+            server.start();
+            return () -> {
+                server.stop();
+                executor.shutdownNow();
+            };
+        }
+    },
+    BLOCKING_VIRTUAL {
+        @Override
+        RunningServer start(int port, Runnable onStartedListening) {
+            var server = BlockingEchoServer.withVirtualThreadPerConnection(port, new UppercaseHandler(), onStartedListening);
+            server.start();
+            return server::stop;
+        }
+    },
+    NEW_IO {
+        @Override
+        RunningServer start(int port, Runnable onStartedListening) {
+            var server = new BlockingNewIoEchoServer(port, new UppercaseNewIoHandler(), onStartedListening);
+            server.start();
+            return server::stop;
+        }
+    },
+    NEW_IO_EXECUTOR {
+        @Override
+        RunningServer start(int port, Runnable onStartedListening) {
+            var executor = Executors.newFixedThreadPool(POOL_SIZE);
+            var server = new BlockingNewIoEchoServer(port, new ExecutorServiceHandler<>(new UppercaseNewIoHandler(), executor), onStartedListening);
+            server.start();
+            return () -> {
+                server.stop();
+                executor.shutdownNow();
+            };
+        }
+    },
+    NEW_IO_VIRTUAL {
+        @Override
+        RunningServer start(int port, Runnable onStartedListening) {
+            var server = BlockingNewIoEchoServer.withVirtualThreadPerConnection(port, new UppercaseNewIoHandler(), onStartedListening);
+            server.start();
+            return server::stop;
+        }
+    },
+    SELECTOR {
+        @Override
+        RunningServer start(int port, Runnable onStartedListening) {
+            var server = new SelectorEchoServer(port, new UppercaseSelectionKeyHandler(), onStartedListening);
+            server.start();
+            return server::stop;
+        }
+    },
+    MULTI_SELECTOR {
+        @Override
+        RunningServer start(int port, Runnable onStartedListening) {
+            var server = new MultiSelectorEchoServer(port, new UppercaseSelectionKeyHandler(), onStartedListening);
+            server.start();
+            return server::stop;
+        }
+    },
+    ASYNC {
+        @Override
+        RunningServer start(int port, Runnable onStartedListening) {
+            var server = new AsyncEchoServer(port, new UppercaseAsyncHandler(), onStartedListening);
+            server.start();
+            return server::stop;
+        }
+    };
+
+    private static final int POOL_SIZE = 512;
+
+    abstract RunningServer start(int port, Runnable onStartedListening);
+
+    RunningServer start(int port) throws InterruptedException {
+        var serverReadyLatch = new CountDownLatch(1);
+        var server = start(port, serverReadyLatch::countDown);
+        serverReadyLatch.await();
+        return server;
+    }
+
+    static int freePort() {
+        try (var serverSocket = new ServerSocket(0)) {
+            return serverSocket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
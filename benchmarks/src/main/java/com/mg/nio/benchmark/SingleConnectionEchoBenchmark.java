@@ -0,0 +1,54 @@
+package com.mg.nio.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class SingleConnectionEchoBenchmark {
+
+    @Param
+    private ServerVariant server;
+
+    @Param({"16", "1024", "1048576"})
+    private int payloadSize;
+
+    private RunningServer runningServer;
+    private EchoClient client;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        var port = ServerVariant.freePort();
+        runningServer = server.start(port);
+        client = new EchoClient(port, 1, payloadSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        client.close();
+        runningServer.close();
+    }
+
+    @Benchmark
+    public long roundTrip() throws IOException {
+        return client.roundTrip();
+    }
+}
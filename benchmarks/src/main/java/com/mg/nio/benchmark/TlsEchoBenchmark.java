@@ -0,0 +1,199 @@
+package com.mg.nio.benchmark;
+
+import com.mg.nio.BlockingNewIoEchoServer;
+import com.mg.nio.SelectorEchoServer;
+import com.mg.nio.handler.Handler;
+import com.mg.nio.handler.UppercaseNewIoHandler;
+import com.mg.nio.handler.UppercaseSelectionKeyHandler;
+import com.mg.nio.handler.VirtualThreadHandler;
+import com.mg.nio.tls.TlsChannel;
+import com.mg.nio.tls.TlsHandler;
+import com.mg.nio.tls.TlsSelectionKeyHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.Socket;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Round trips over one connection in plaintext and over TLS 1.3, served by the blocking and the selector server,
+ * to measure what the encryption costs. The self-signed certificate is generated with keytool for every trial.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class TlsEchoBenchmark {
+    private static final char[] PASSWORD = "changeit".toCharArray();
+
+    public enum Security {
+        PLAINTEXT, TLS
+    }
+
+    public enum Server {
+        BLOCKING, SELECTOR
+    }
+
+    @Param
+    private Security security;
+
+    @Param
+    private Server server;
+
+    @Param({"16", "65536"})
+    private int payloadSize;
+
+    private Runnable stopServer;
+    private Socket socket;
+    private OutputStream out;
+    private InputStream in;
+    private byte[] request;
+    private byte[] response;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        var port = ServerVariant.freePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var keyStore = security == Security.TLS ? selfSignedKeyStore() : null;
+        var serverContext = keyStore == null ? null : serverContext(keyStore);
+        switch (server) {
+            case BLOCKING -> {
+                var handler = new UppercaseNewIoHandler();
+                Handler<SocketChannel> plainOrTls = serverContext == null ? handler : new TlsHandler(serverContext, handler::handleChannel);
+                var blocking = new BlockingNewIoEchoServer(port, new VirtualThreadHandler<>(socket -> {
+                    noDelay(socket);
+                    plainOrTls.handle(socket);
+                }), serverReadyLatch::countDown);
+                blocking.start();
+                stopServer = blocking::stop;
+            }
+            case SELECTOR -> {
+                Handler<SelectionKey> plainOrTls = serverContext == null ? new UppercaseSelectionKeyHandler() : new TlsSelectionKeyHandler(serverContext);
+                var selector = new SelectorEchoServer(port, key -> {
+                    noDelay((SocketChannel) key.channel());
+                    plainOrTls.handle(key);
+                }, serverReadyLatch::countDown);
+                selector.start();
+                stopServer = selector::stop;
+            }
+        }
+        serverReadyLatch.await();
+        socket = keyStore == null ? new Socket("localhost", port) : tlsSocket(keyStore, port);
+        socket.setTcpNoDelay(true);
+        out = socket.getOutputStream();
+        in = socket.getInputStream();
+        request = new byte[payloadSize];
+        for (int i = 0; i < payloadSize; i++) {
+            request[i] = (byte) ('a' + i % 26);
+        }
+        response = new byte[payloadSize];
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        socket.close();
+        stopServer.run();
+    }
+
+    @Benchmark
+    public byte roundTrip() throws Exception {
+        var writer = Thread.ofVirtual().start(() -> {
+            try {
+                out.write(request);
+                out.flush();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        var read = in.readNBytes(response, 0, payloadSize);
+        writer.join();
+        if (read != payloadSize) {
+            throw new IOException("Server closed connection before echoing the whole payload");
+        }
+        return response[0];
+    }
+
+    /**
+     * The handlers write in 8K pieces, below the loopback MSS, so without it Nagle and delayed ACKs
+     * would dominate every large round trip.
+     */
+    private static void noDelay(SocketChannel socket) {
+        try {
+            socket.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static KeyStore selfSignedKeyStore() throws Exception {
+        var directory = Files.createTempDirectory("tls");
+        var file = directory.resolve("server.p12");
+        try {
+            var keytool = new ProcessBuilder(
+                    Path.of(System.getProperty("java.home"), "bin", "keytool").toString(),
+                    "-genkeypair", "-alias", "server", "-keyalg", "EC", "-groupname", "secp256r1",
+                    "-dname", "CN=localhost", "-validity", "1", "-storetype", "PKCS12",
+                    "-keystore", file.toString(), "-storepass", new String(PASSWORD))
+                    .inheritIO()
+                    .start();
+            if (keytool.waitFor() != 0) {
+                throw new IllegalStateException("keytool failed with exit code " + keytool.exitValue());
+            }
+            var keyStore = KeyStore.getInstance("PKCS12");
+            try (var keyStoreIn = Files.newInputStream(file)) {
+                keyStore.load(keyStoreIn, PASSWORD);
+            }
+            return keyStore;
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    private static SSLContext serverContext(KeyStore keyStore) throws Exception {
+        var keyManagers = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagers.init(keyStore, PASSWORD);
+        var context = SSLContext.getInstance("TLS");
+        context.init(keyManagers.getKeyManagers(), null, null);
+        return context;
+    }
+
+    private static Socket tlsSocket(KeyStore keyStore, int port) throws Exception {
+        var trustManagers = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagers.init(keyStore);
+        var context = SSLContext.getInstance("TLS");
+        context.init(null, trustManagers.getTrustManagers(), null);
+        var socket = (SSLSocket) context.getSocketFactory().createSocket("localhost", port);
+        socket.setEnabledProtocols(new String[]{TlsChannel.PROTOCOL});
+        socket.startHandshake();
+        return socket;
+    }
+}
@@ -0,0 +1,54 @@
+package com.mg.nio.benchmark;
+
+import com.mg.nio.transform.ByteTransformer;
+import com.mg.nio.transform.UppercaseTransformer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class TransformBenchmark {
+
+    @Param({"false", "true"})
+    private boolean vectorized;
+
+    @Param({"false", "true"})
+    private boolean direct;
+
+    @Param({"64", "8192", "1048576"})
+    private int payloadSize;
+
+    private ByteTransformer transformer;
+    private ByteBuffer buffer;
+
+    @Setup
+    public void setUp() {
+        transformer = UppercaseTransformer.create(vectorized);
+        var payload = new byte[payloadSize];
+        new Random(payloadSize).nextBytes(payload);
+        buffer = (direct ? ByteBuffer.allocateDirect(payloadSize) : ByteBuffer.allocate(payloadSize)).put(payload).flip();
+    }
+
+    @Benchmark
+    public ByteBuffer transform() {
+        transformer.transform(buffer);
+        return buffer;
+    }
+}
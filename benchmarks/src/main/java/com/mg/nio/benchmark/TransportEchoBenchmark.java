@@ -0,0 +1,90 @@
+package com.mg.nio.benchmark;
+
+import com.mg.nio.BlockingNewIoEchoServer;
+import com.mg.nio.handler.UppercaseNewIoHandler;
+import com.mg.nio.handler.VirtualThreadHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Same server and handler stack over loopback TCP and over a Unix domain socket.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class TransportEchoBenchmark {
+
+    public enum Transport {
+        TCP, UDS
+    }
+
+    @Param
+    private Transport transport;
+
+    @Param({"1", "64"})
+    private int connections;
+
+    @Param({"16", "65536"})
+    private int payloadSize;
+
+    private Path socketDirectory;
+    private BlockingNewIoEchoServer server;
+    private EchoClient client;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        var address = address();
+        var serverReadyLatch = new CountDownLatch(1);
+        server = new BlockingNewIoEchoServer(address, new VirtualThreadHandler<>(new UppercaseNewIoHandler()), serverReadyLatch::countDown);
+        server.start();
+        serverReadyLatch.await();
+        client = new EchoClient(address, connections, payloadSize);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        client.close();
+        server.stop().get();
+        if (socketDirectory != null) {
+            Files.deleteIfExists(socketDirectory);
+        }
+    }
+
+    @Benchmark
+    public long roundTrip() throws IOException {
+        return client.roundTrip();
+    }
+
+    private SocketAddress address() throws IOException {
+        return switch (transport) {
+            case TCP -> new InetSocketAddress("localhost", ServerVariant.freePort());
+            case UDS -> {
+                socketDirectory = Files.createTempDirectory("echo");
+                yield UnixDomainSocketAddress.of(socketDirectory.resolve("echo.sock"));
+            }
+        };
+    }
+}
@@ -0,0 +1,72 @@
+package com.mg.nio;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Stop-and-drain lifecycle shared by the servers. Stopping closes the listeners right away, then the server keeps
+ * serving the connections it already accepted until they close or the drain timeout passes, and closes the rest.
+ * Every call to stop returns the same future, completed with the {@link ShutdownReport} once the drain is over.
+ */
+public abstract class AbstractEchoServer {
+    public static final Duration DEFAULT_DRAIN_TIMEOUT = Duration.ofSeconds(5);
+    private static final ShutdownReport NEVER_STARTED = new ShutdownReport(0, 0, Duration.ZERO);
+
+    private final AtomicBoolean stopped = new AtomicBoolean(false);
+    private final CompletableFuture<ShutdownReport> terminated = new CompletableFuture<>();
+    private volatile boolean started;
+    private volatile Duration drainTimeout = DEFAULT_DRAIN_TIMEOUT;
+
+    AbstractEchoServer() {
+    }
+
+    public CompletableFuture<ShutdownReport> stop() {
+        return stop(DEFAULT_DRAIN_TIMEOUT);
+    }
+
+    /**
+     * Stops accepting right away, then gives connections already accepted up to drainTimeout to finish
+     * before closing them.
+     */
+    public synchronized CompletableFuture<ShutdownReport> stop(Duration drainTimeout) {
+        if (!stopped.getAndSet(true)) {
+            this.drainTimeout = drainTimeout;
+            if (started) {
+                stopAccepting();
+            } else {
+                terminated.complete(NEVER_STARTED);
+            }
+        }
+        return terminated;
+    }
+
+    /**
+     * Closes the listeners and starts the drain, which ends in {@link #terminated(ShutdownReport)}. Called once,
+     * holding the server's monitor, and only if the server was started.
+     */
+    abstract void stopAccepting();
+
+    /**
+     * To be called, holding the server's monitor, once the listeners are bound, so a stop from then on drains.
+     */
+    final void started() {
+        started = true;
+    }
+
+    final boolean isStopped() {
+        return stopped.get();
+    }
+
+    final Duration drainTimeout() {
+        return drainTimeout;
+    }
+
+    final void terminated(ShutdownReport report) {
+        terminated.complete(report);
+    }
+
+    final void failed(Throwable e) {
+        terminated.completeExceptionally(e);
+    }
+}
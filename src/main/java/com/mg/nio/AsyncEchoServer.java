@@ -0,0 +1,132 @@
+package com.mg.nio;
+
+import com.mg.nio.handler.Handler;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.AsynchronousChannelGroup;
+import java.nio.channels.AsynchronousServerSocketChannel;
+import java.nio.channels.AsynchronousSocketChannel;
+import java.nio.channels.CompletionHandler;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Server on the completion based NIO.2 API. Accepting and all I/O of handlers run on the threads of
+ * an {@link AsynchronousChannelGroup}, no thread is tied to a connection.
+ */
+public class AsyncEchoServer extends AbstractEchoServer {
+    private static final Logger logger = getLogger(AsyncEchoServer.class);
+    private static final int ACCEPT_BACKLOG = 1024;
+    private final ConnectionTracker<AsynchronousSocketChannel> connections = new ConnectionTracker<>(AsynchronousSocketChannel::isOpen);
+    private final CompletionHandler<AsynchronousSocketChannel, Void> onAccepted = new AcceptCompleted();
+
+    private final int port;
+    private final Handler<AsynchronousSocketChannel> handler;
+    private final AsynchronousChannelGroup group;
+    private final boolean ownsGroup;
+    private final Runnable onStartedListening;
+    private volatile AsynchronousServerSocketChannel serverSocketChannel;
+
+    public AsyncEchoServer(int port, Handler<AsynchronousSocketChannel> handler, Runnable onStartedListening) {
+        this(port, handler, Runtime.getRuntime().availableProcessors(), onStartedListening);
+    }
+
+    public AsyncEchoServer(int port, Handler<AsynchronousSocketChannel> handler, int threads, Runnable onStartedListening) {
+        this(port, handler, fixedThreadPoolGroup(threads), true, onStartedListening);
+    }
+
+    /**
+     * @param group shared with the caller, so it is left running when the server stops
+     */
+    public AsyncEchoServer(int port, Handler<AsynchronousSocketChannel> handler, AsynchronousChannelGroup group, Runnable onStartedListening) {
+        this(port, handler, group, false, onStartedListening);
+    }
+
+    private AsyncEchoServer(int port, Handler<AsynchronousSocketChannel> handler, AsynchronousChannelGroup group, boolean ownsGroup, Runnable onStartedListening) {
+        this.port = port;
+        this.handler = handler;
+        this.group = group;
+        this.ownsGroup = ownsGroup;
+        this.onStartedListening = onStartedListening;
+    }
+
+    public synchronized void start() {
+        try {
+            serverSocketChannel = AsynchronousServerSocketChannel.open(group).bind(new InetSocketAddress(port), ACCEPT_BACKLOG);
+            logger.info("Started listening on {}", serverSocketChannel.getLocalAddress());
+        } catch (IOException e) {
+            logger.error("Error while creating socket for accepting incoming connections", e);
+            throw new UncheckedIOException(e);
+        }
+        started();
+        onStartedListening.run();
+        serverSocketChannel.accept(null, onAccepted);
+    }
+
+    @Override
+    void stopAccepting() {
+        try {
+            serverSocketChannel.close();
+        } catch (IOException e) {
+            logger.warn("Error while closing server socket", e);
+        }
+        connections.stopping();
+        Thread.ofPlatform().name("async-server-drain").start(() -> {
+            var report = connections.drain(drainTimeout());
+            if (ownsGroup) {
+                group.shutdown();
+            }
+            terminated(report);
+        });
+    }
+
+    private static AsynchronousChannelGroup fixedThreadPoolGroup(int threads) {
+        try {
+            return AsynchronousChannelGroup.withFixedThreadPool(threads, Thread.ofPlatform().name("async-io-", 0).factory());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private final class AcceptCompleted implements CompletionHandler<AsynchronousSocketChannel, Void> {
+        @Override
+        public void completed(AsynchronousSocketChannel socket, Void attachment) {
+            synchronized (AsyncEchoServer.this) {
+                if (isStopped()) {
+                    close(socket);
+                    return;
+                }
+                connections.add(socket);
+            }
+            serverSocketChannel.accept(null, this);
+            try {
+                handler.handle(socket);
+            } catch (Exception e) {
+                logger.error("Error while handling client connection", e);
+                close(socket);
+            }
+        }
+
+        @Override
+        public void failed(Throwable e, Void attachment) {
+            if (isStopped()) {
+                return;
+            }
+            logger.error("Error while accepting client connection", e);
+            if (serverSocketChannel.isOpen()) {
+                serverSocketChannel.accept(null, this);
+            }
+        }
+
+        private static void close(AsynchronousSocketChannel socket) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                logger.warn("Error while closing client connection", e);
+            }
+        }
+    }
+}
@@ -1,54 +1,134 @@
 package com.mg.nio;
 
 import com.mg.nio.handler.Handler;
+import com.mg.nio.handler.VirtualThreadHandler;
 import org.slf4j.Logger;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.slf4j.LoggerFactory.getLogger;
 
-public class BlockingEchoServer {
+public class BlockingEchoServer extends AbstractEchoServer {
     private static final Logger logger = getLogger(BlockingEchoServer.class);
-    private final AtomicBoolean stopped = new AtomicBoolean(false);
+    private final ConnectionTracker<Socket> connections = new ConnectionTracker<>(socket -> !socket.isClosed());
+    private final List<ServerSocket> serverSockets = new CopyOnWriteArrayList<>();
 
-    private final int port;
+    private final ListenerOptions listenerOptions;
     private final Handler<Socket> handler;
     private final Runnable onStartedListening;
 
     public BlockingEchoServer(int port, Handler<Socket> handler, Runnable onStartedListening) {
-        this.port = port;
+        this(ListenerOptions.onPort(port), handler, onStartedListening);
+    }
+
+    /**
+     * @throws IllegalArgumentException if an address is a {@link UnixDomainSocketAddress}, which
+     *                                  {@link ServerSocket} cannot bind; use {@link BlockingNewIoEchoServer} instead
+     */
+    public BlockingEchoServer(ListenerOptions listenerOptions, Handler<Socket> handler, Runnable onStartedListening) {
+        if (listenerOptions.addresses().stream().anyMatch(UnixDomainSocketAddress.class::isInstance)) {
+            throw new IllegalArgumentException("ServerSocket cannot listen on a Unix domain socket, use BlockingNewIoEchoServer");
+        }
+        this.listenerOptions = listenerOptions;
         this.handler = handler;
         this.onStartedListening = onStartedListening;
     }
 
+    public static BlockingEchoServer withVirtualThreadPerConnection(int port, Handler<Socket> handler, Runnable onStartedListening) {
+        return new BlockingEchoServer(port, new VirtualThreadHandler<>(handler), onStartedListening);
+    }
 
-    public void start() {
-        new Thread(() -> {
-            try (var serverSocket = new ServerSocket(port)) {
-                logger.info("Started listening on {}", serverSocket.getLocalSocketAddress());
-                onStartedListening.run();
-                while (!stopped.get()) {
-                    try {
-                        var socket = serverSocket.accept();
-                        handler.handle(socket);
-                    } catch (IOException e) {
-                        logger.error("Error while handling client connection", e);
-                        throw new UncheckedIOException(e);
+
+    /**
+     * Binds every listener before returning, so a port that is already taken fails the start and releases the
+     * listeners bound so far.
+     */
+    public synchronized void start() {
+        ListenerOptions.checkReusePortSupported(listenerOptions);
+        try {
+            for (var address : listenerOptions.addresses()) {
+                for (int i = 0; i < listenerOptions.acceptors(); i++) {
+                    serverSockets.add(bind(address));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Error while creating socket for accepting incoming connections", e);
+            closeServerSockets();
+            serverSockets.clear();
+            throw e instanceof IOException io ? new UncheckedIOException(io) : (RuntimeException) e;
+        }
+        started();
+        var running = new AtomicInteger(serverSockets.size());
+        var acceptorId = 0;
+        for (var serverSocket : serverSockets) {
+            new Thread(() -> accept(serverSocket, running), "acceptor-" + acceptorId++).start();
+        }
+        onStartedListening.run();
+    }
+
+    private ServerSocket bind(SocketAddress address) throws IOException {
+        var serverSocket = new ServerSocket();
+        try {
+            if (listenerOptions.reusePort()) {
+                serverSocket.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+            }
+            serverSocket.bind(address, listenerOptions.backlog());
+            logger.info("Started listening on {}", serverSocket.getLocalSocketAddress());
+            return serverSocket;
+        } catch (IOException | RuntimeException e) {
+            serverSocket.close();
+            throw e;
+        }
+    }
+
+    private void accept(ServerSocket serverSocket, AtomicInteger running) {
+        try (serverSocket) {
+            while (!isStopped()) {
+                try {
+                    var socket = serverSocket.accept();
+                    connections.add(socket);
+                    handler.handle(socket);
+                } catch (IOException e) {
+                    if (isStopped()) {
+                        break;
                     }
+                    logger.error("Error while handling client connection", e);
+                    throw new UncheckedIOException(e);
                 }
-            } catch (IOException e) {
-                logger.error("Error while creating socket for accepting incoming connections", e);
-                throw new UncheckedIOException(e);
             }
-        }).start();
+        } catch (IOException e) {
+            logger.error("Error while closing socket for accepting incoming connections", e);
+            throw new UncheckedIOException(e);
+        } finally {
+            if (running.decrementAndGet() == 0) {
+                terminated(connections.drain(drainTimeout()));
+            }
+        }
     }
 
-    public void stop() {
-        stopped.set(true);
+    @Override
+    void stopAccepting() {
+        closeServerSockets();
+        connections.stopping();
+    }
+
+    private void closeServerSockets() {
+        for (var serverSocket : serverSockets) {
+            try {
+                serverSocket.close();
+            } catch (IOException e) {
+                logger.warn("Error while closing server socket", e);
+            }
+        }
     }
 
 }
@@ -1,56 +1,161 @@
 package com.mg.nio;
 
 import com.mg.nio.handler.Handler;
+import com.mg.nio.handler.VirtualThreadHandler;
 import org.slf4j.Logger;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
-import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ClosedChannelException;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.slf4j.LoggerFactory.getLogger;
 
-public class BlockingNewIoEchoServer {
+public class BlockingNewIoEchoServer extends AbstractEchoServer {
     private static final Logger logger = getLogger(BlockingNewIoEchoServer.class);
-    private final AtomicBoolean stopped = new AtomicBoolean(false);
+    private final ConnectionTracker<SocketChannel> connections = new ConnectionTracker<>(SocketChannel::isOpen);
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
 
-    private final int port;
+    private final ListenerOptions listenerOptions;
     private final Handler<SocketChannel> handler;
     private final Runnable onStartedListening;
 
     public BlockingNewIoEchoServer(int port, Handler<SocketChannel> handler, Runnable onStartedListening) {
-        this.port = port;
+        this(ListenerOptions.onPort(port), handler, onStartedListening);
+    }
+
+    /**
+     * @param address TCP address, or {@link UnixDomainSocketAddress} for clients on the same host, the socket file
+     *                is removed when the server stops
+     */
+    public BlockingNewIoEchoServer(SocketAddress address, Handler<SocketChannel> handler, Runnable onStartedListening) {
+        this(ListenerOptions.on(address), handler, onStartedListening);
+    }
+
+    public BlockingNewIoEchoServer(ListenerOptions listenerOptions, Handler<SocketChannel> handler, Runnable onStartedListening) {
+        this.listenerOptions = listenerOptions;
         this.handler = handler;
         this.onStartedListening = onStartedListening;
     }
 
+    public static BlockingNewIoEchoServer withVirtualThreadPerConnection(int port, Handler<SocketChannel> handler, Runnable onStartedListening) {
+        return new BlockingNewIoEchoServer(port, new VirtualThreadHandler<>(handler), onStartedListening);
+    }
+
+
+    /**
+     * Binds every listener before returning, so a port that is already taken fails the start and releases the
+     * listeners bound so far.
+     */
+    public synchronized void start() {
+        ListenerOptions.checkReusePortSupported(listenerOptions);
+        try {
+            for (var address : listenerOptions.addresses()) {
+                for (int i = 0; i < listenerOptions.acceptors(); i++) {
+                    listeners.add(new Listener(address, bind(address)));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Error while creating socket for accepting incoming connections", e);
+            closeListeners();
+            listeners.forEach(listener -> deleteSocketFile(listener.address()));
+            listeners.clear();
+            throw e instanceof IOException io ? new UncheckedIOException(io) : (RuntimeException) e;
+        }
+        started();
+        var running = new AtomicInteger(listeners.size());
+        var acceptorId = 0;
+        for (var listener : listeners) {
+            new Thread(() -> accept(listener, running), "acceptor-" + acceptorId++).start();
+        }
+        onStartedListening.run();
+    }
+
+    private ServerSocketChannel bind(SocketAddress address) throws IOException {
+        var serverSocketChannel = open(address);
+        try {
+            serverSocketChannel.configureBlocking(true);
+            if (listenerOptions.reusePort()) {
+                serverSocketChannel.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+            }
+            serverSocketChannel.bind(address, listenerOptions.backlog());
+            logger.info("Started listening on {}", serverSocketChannel.getLocalAddress());
+            return serverSocketChannel;
+        } catch (IOException | RuntimeException e) {
+            serverSocketChannel.close();
+            throw e;
+        }
+    }
 
-    public void start() {
-        new Thread(() -> {
-            try (var serverSocketChannel = ServerSocketChannel.open()) {
-                serverSocketChannel.configureBlocking(true);
-                serverSocketChannel.socket().bind(new InetSocketAddress(port));
-                logger.info("Started listening on {}", serverSocketChannel.getLocalAddress());
-                onStartedListening.run();
-                while (!stopped.get()) {
-                    try {
-                        var socket = serverSocketChannel.accept();
-                        handler.handle(socket);
-                    } catch (IOException e) {
-                        logger.error("Error while handling client connection", e);
-                        throw new UncheckedIOException(e);
+    private void accept(Listener listener, AtomicInteger running) {
+        try (var serverSocketChannel = listener.channel()) {
+            while (!isStopped()) {
+                try {
+                    var socket = serverSocketChannel.accept();
+                    connections.add(socket);
+                    handler.handle(socket);
+                } catch (ClosedChannelException e) {
+                    if (!isStopped()) {
+                        throw e;
                     }
+                } catch (IOException e) {
+                    logger.error("Error while handling client connection", e);
+                    throw new UncheckedIOException(e);
                 }
+            }
+        } catch (IOException e) {
+            logger.error("Error while accepting incoming connections", e);
+        } finally {
+            deleteSocketFile(listener.address());
+            if (running.decrementAndGet() == 0) {
+                terminated(connections.drain(drainTimeout()));
+            }
+        }
+    }
+
+    private static ServerSocketChannel open(SocketAddress address) throws IOException {
+        if (address instanceof UnixDomainSocketAddress) {
+            return ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        }
+        return ServerSocketChannel.open();
+    }
+
+    private static void deleteSocketFile(SocketAddress address) {
+        if (address instanceof UnixDomainSocketAddress unixAddress) {
+            try {
+                Files.deleteIfExists(unixAddress.getPath());
+            } catch (IOException e) {
+                logger.warn("Error while deleting socket file {}", unixAddress.getPath(), e);
+            }
+        }
+    }
+
+    @Override
+    void stopAccepting() {
+        closeListeners();
+        connections.stopping();
+    }
+
+    private void closeListeners() {
+        for (var listener : listeners) {
+            try {
+                listener.channel().close();
             } catch (IOException e) {
-                logger.error("Error while creating socket for accepting incoming connections", e);
+                logger.warn("Error while closing server socket", e);
             }
-        }).start();
+        }
     }
 
-    public void stop() {
-        stopped.set(true);
+    private record Listener(SocketAddress address, ServerSocketChannel channel) {
     }
 
 }
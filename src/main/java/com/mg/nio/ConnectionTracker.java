@@ -0,0 +1,80 @@
+package com.mg.nio;
+
+import org.slf4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Remembers accepted connections so a stopping server can wait for them to be closed by their handlers.
+ * Handlers may hand connections over to other threads, so completion is observed by polling whether the
+ * connection is still open rather than by a callback.
+ */
+class ConnectionTracker<T extends Closeable> {
+    private static final Logger logger = getLogger(ConnectionTracker.class);
+    private static final int PRUNE_EVERY = 1024;
+    private static final long POLL_INTERVAL_NANOS = Duration.ofMillis(10).toNanos();
+
+    private final Set<T> connections = ConcurrentHashMap.newKeySet();
+    private final Predicate<T> isOpen;
+    private final AtomicInteger added = new AtomicInteger();
+
+    ConnectionTracker(Predicate<T> isOpen) {
+        this.isOpen = isOpen;
+    }
+
+    void add(T connection) {
+        connections.add(connection);
+        if (added.incrementAndGet() % PRUNE_EVERY == 0) {
+            connections.removeIf(isOpen.negate());
+        }
+    }
+
+    /**
+     * Forgets connections that were already closed when the server was asked to stop, so they are not reported
+     * as drained.
+     */
+    void stopping() {
+        connections.removeIf(isOpen.negate());
+    }
+
+    /**
+     * Must be called only once nothing can {@link #add} anymore, i.e. after the listeners are closed and the
+     * acceptors have returned, otherwise a connection accepted late would be neither drained nor cut off.
+     */
+    ShutdownReport drain(Duration timeout) {
+        var startedAt = System.nanoTime();
+        var deadline = startedAt + timeout.toNanos();
+        var openAtStop = connections.size();
+        connections.removeIf(isOpen.negate());
+        while (!connections.isEmpty() && System.nanoTime() - deadline < 0) {
+            LockSupport.parkNanos(POLL_INTERVAL_NANOS);
+            connections.removeIf(isOpen.negate());
+        }
+        var cutOff = 0;
+        for (var connection : connections) {
+            if (isOpen.test(connection)) {
+                cutOff++;
+                close(connection);
+            }
+        }
+        connections.clear();
+        return new ShutdownReport(Math.max(openAtStop - cutOff, 0), cutOff, Duration.ofNanos(System.nanoTime() - startedAt));
+    }
+
+    private static void close(Closeable connection) {
+        try {
+            connection.close();
+        } catch (IOException e) {
+            logger.warn("Error while closing connection", e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.mg.nio;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.util.List;
+
+/**
+ * How a server listens. Every address gets {@code acceptors} listening sockets bound with SO_REUSEPORT,
+ * each drained by its own accept thread, so the kernel spreads incoming connections across them.
+ *
+ * @param backlog length of the queue of connections waiting to be accepted, per listening socket, 0 for the
+ *                system default
+ */
+public record ListenerOptions(int acceptors, int backlog, List<SocketAddress> addresses) {
+    public static final int DEFAULT_BACKLOG = 50;
+
+    public ListenerOptions {
+        if (acceptors < 1) {
+            throw new IllegalArgumentException("At least one acceptor is required, got " + acceptors);
+        }
+        if (backlog < 0) {
+            throw new IllegalArgumentException("Backlog must not be negative, got " + backlog);
+        }
+        if (addresses.isEmpty()) {
+            throw new IllegalArgumentException("At least one address is required");
+        }
+        if (acceptors > 1 && addresses.stream().anyMatch(UnixDomainSocketAddress.class::isInstance)) {
+            throw new IllegalArgumentException("SO_REUSEPORT is not available for Unix domain sockets, use a single acceptor");
+        }
+        if (acceptors > 1 && addresses.stream().anyMatch(address -> address instanceof InetSocketAddress inet && inet.getPort() == 0)) {
+            throw new IllegalArgumentException("Port 0 would give every acceptor its own ephemeral port, use a fixed port for several acceptors");
+        }
+        addresses = List.copyOf(addresses);
+    }
+
+    public static ListenerOptions onPort(int port) {
+        return on(new InetSocketAddress(port));
+    }
+
+    /**
+     * @param address an {@link InetSocketAddress} or, for channel based servers, a {@link UnixDomainSocketAddress}
+     */
+    public static ListenerOptions on(SocketAddress address) {
+        return new ListenerOptions(1, DEFAULT_BACKLOG, List.of(address));
+    }
+
+    public ListenerOptions withAcceptors(int acceptors) {
+        return new ListenerOptions(acceptors, backlog, addresses);
+    }
+
+    public ListenerOptions withBacklog(int backlog) {
+        return new ListenerOptions(acceptors, backlog, addresses);
+    }
+
+    public boolean reusePort() {
+        return acceptors > 1;
+    }
+
+    public int listeners() {
+        return acceptors * addresses.size();
+    }
+
+    static void checkReusePortSupported(ListenerOptions options) {
+        if (!options.reusePort()) {
+            return;
+        }
+        try (var channel = ServerSocketChannel.open()) {
+            if (!channel.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT)) {
+                throw new IllegalStateException("SO_REUSEPORT is not supported on this platform, use a single acceptor");
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
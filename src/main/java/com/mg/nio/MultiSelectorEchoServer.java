@@ -0,0 +1,51 @@
+package com.mg.nio;
+
+import com.mg.nio.buffer.BufferPool;
+import com.mg.nio.buffer.SizeClassedBufferPool;
+import com.mg.nio.handler.Handler;
+import com.mg.nio.handler.SelectorWorkerGroupHandler;
+import com.mg.nio.timeout.IdleTimeoutSettings;
+
+import java.nio.channels.SelectionKey;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+public class MultiSelectorEchoServer {
+    private final BlockingNewIoEchoServer acceptor;
+    private final SelectorWorkerGroupHandler workerGroup;
+
+    public MultiSelectorEchoServer(int port, Handler<SelectionKey> handler, Runnable onStartedListening) {
+        this(port, handler, Runtime.getRuntime().availableProcessors(), onStartedListening);
+    }
+
+    public MultiSelectorEchoServer(int port, Handler<SelectionKey> handler, int workers, Runnable onStartedListening) {
+        this(port, handler, workers, new SizeClassedBufferPool(true), onStartedListening);
+    }
+
+    public MultiSelectorEchoServer(int port, Handler<SelectionKey> handler, int workers, BufferPool bufferPool, Runnable onStartedListening) {
+        this(ListenerOptions.onPort(port), handler, workers, bufferPool, IdleTimeoutSettings.DISABLED, onStartedListening);
+    }
+
+    public MultiSelectorEchoServer(ListenerOptions listenerOptions, Handler<SelectionKey> handler, int workers, BufferPool bufferPool,
+                                   IdleTimeoutSettings idleTimeoutSettings, Runnable onStartedListening) {
+        this.workerGroup = new SelectorWorkerGroupHandler(handler, workers, bufferPool, idleTimeoutSettings);
+        this.acceptor = new BlockingNewIoEchoServer(listenerOptions, workerGroup, onStartedListening);
+    }
+
+    public void start() {
+        acceptor.start();
+    }
+
+    public CompletableFuture<ShutdownReport> stop() {
+        return stop(BlockingNewIoEchoServer.DEFAULT_DRAIN_TIMEOUT);
+    }
+
+    /**
+     * Stops accepting, lets the selector workers serve accepted connections until they finish or the drain
+     * timeout passes, then stops the workers.
+     */
+    public CompletableFuture<ShutdownReport> stop(Duration drainTimeout) {
+        return acceptor.stop(drainTimeout).whenComplete((report, e) -> workerGroup.close());
+    }
+
+}
@@ -0,0 +1,153 @@
+package com.mg.nio;
+
+import com.mg.nio.buffer.BufferPool;
+import com.mg.nio.buffer.SizeClassedBufferPool;
+import com.mg.nio.handler.ConnectionState;
+import com.mg.nio.handler.Handler;
+import com.mg.nio.timeout.IdleTimeoutSettings;
+import com.mg.nio.timeout.IdleTimeouts;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+public class SelectorEchoServer extends AbstractEchoServer {
+    private static final Logger logger = getLogger(SelectorEchoServer.class);
+
+    private final int port;
+    private final Handler<SelectionKey> handler;
+    private final BufferPool bufferPool;
+    private final IdleTimeouts idleTimeouts;
+    private final Runnable onStartedListening;
+    private volatile Selector selector;
+
+    public SelectorEchoServer(int port, Handler<SelectionKey> handler, Runnable onStartedListening) {
+        this(port, handler, new SizeClassedBufferPool(true), onStartedListening);
+    }
+
+    public SelectorEchoServer(int port, Handler<SelectionKey> handler, BufferPool bufferPool, Runnable onStartedListening) {
+        this(port, handler, bufferPool, IdleTimeoutSettings.DISABLED, onStartedListening);
+    }
+
+    public SelectorEchoServer(int port, Handler<SelectionKey> handler, BufferPool bufferPool, IdleTimeoutSettings idleTimeoutSettings, Runnable onStartedListening) {
+        this.port = port;
+        this.handler = handler;
+        this.bufferPool = bufferPool;
+        this.idleTimeouts = new IdleTimeouts(idleTimeoutSettings);
+        this.onStartedListening = onStartedListening;
+    }
+
+    public synchronized void start() {
+        started();
+        new Thread(() -> {
+            try (var selector = Selector.open()) {
+                this.selector = selector;
+                try (var serverSocketChannel = ServerSocketChannel.open()) {
+                    serverSocketChannel.configureBlocking(false);
+                    serverSocketChannel.bind(new InetSocketAddress(port));
+                    serverSocketChannel.register(selector, SelectionKey.OP_ACCEPT);
+                    logger.info("Started listening on {}", serverSocketChannel.getLocalAddress());
+                    onStartedListening.run();
+                    while (!isStopped()) {
+                        selector.select(this::dispatch, idleTimeouts.tickMillis());
+                        idleTimeouts.expireIdle();
+                    }
+                }
+                terminated(drain(selector));
+            } catch (IOException e) {
+                logger.error("Error while creating selector for accepting incoming connections", e);
+                failed(e);
+                throw new UncheckedIOException(e);
+            }
+        }).start();
+    }
+
+    /**
+     * Keeps serving the connections accepted before stop on the selector thread until they close or the
+     * drain timeout passes, then closes the rest. The listener is already closed, so the count cannot grow.
+     */
+    private ShutdownReport drain(Selector selector) throws IOException {
+        var startedAt = System.nanoTime();
+        var deadline = startedAt + drainTimeout().toNanos();
+        var openAtStop = openConnections(selector);
+        var remainingNanos = deadline - System.nanoTime();
+        while (openConnections(selector) > 0 && remainingNanos > 0) {
+            var timeoutMillis = Math.max(TimeUnit.NANOSECONDS.toMillis(remainingNanos), 1);
+            var tickMillis = idleTimeouts.tickMillis();
+            selector.select(this::dispatch, tickMillis > 0 ? Math.min(tickMillis, timeoutMillis) : timeoutMillis);
+            idleTimeouts.expireIdle();
+            remainingNanos = deadline - System.nanoTime();
+        }
+        var cutOff = openConnections(selector);
+        selector.keys().forEach(SelectorEchoServer::close);
+        return new ShutdownReport(openAtStop - cutOff, cutOff, Duration.ofNanos(System.nanoTime() - startedAt));
+    }
+
+    private static int openConnections(Selector selector) {
+        var open = 0;
+        for (var key : selector.keys()) {
+            if (key.isValid() && key.channel() instanceof SocketChannel) {
+                open++;
+            }
+        }
+        return open;
+    }
+
+    @Override
+    void stopAccepting() {
+        var selector = this.selector;
+        if (selector != null) {
+            selector.wakeup();
+        }
+    }
+
+    private void dispatch(SelectionKey key) {
+        if (!key.isValid()) {
+            return;
+        }
+        if (key.isAcceptable()) {
+            accept(key);
+            return;
+        }
+        try {
+            handler.handle(key);
+            ConnectionState.touch(key);
+        } catch (Exception e) {
+            logger.error("Error while handling client connection", e);
+            close(key);
+        }
+    }
+
+    private void accept(SelectionKey key) {
+        var serverSocketChannel = (ServerSocketChannel) key.channel();
+        try {
+            var socket = serverSocketChannel.accept();
+            if (socket != null) {
+                socket.configureBlocking(false);
+                var state = new ConnectionState(bufferPool);
+                var clientKey = socket.register(key.selector(), SelectionKey.OP_READ, state);
+                state.idleTimeout(idleTimeouts.watch(() -> close(clientKey)));
+            }
+        } catch (IOException e) {
+            logger.error("Error while accepting client connection", e);
+        }
+    }
+
+    private static void close(SelectionKey key) {
+        try {
+            ConnectionState.close(key);
+        } catch (IOException e) {
+            logger.warn("Error while closing client connection", e);
+        }
+    }
+
+}
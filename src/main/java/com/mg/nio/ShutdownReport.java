@@ -0,0 +1,12 @@
+package com.mg.nio;
+
+import java.time.Duration;
+
+/**
+ * Outcome of stopping a server.
+ *
+ * @param drainedConnections connections that finished on their own before the drain deadline
+ * @param cutOffConnections  connections still open at the deadline, closed by the server
+ */
+public record ShutdownReport(int drainedConnections, int cutOffConnections, Duration elapsed) {
+}
@@ -0,0 +1,15 @@
+package com.mg.nio.buffer;
+
+import java.nio.ByteBuffer;
+
+public interface BufferPool {
+    /**
+     * Returns a cleared buffer with at least the requested capacity.
+     */
+    ByteBuffer acquire(int capacity);
+
+    /**
+     * Gives a buffer obtained from {@link #acquire(int)} back to the pool. The caller must not use it afterwards.
+     */
+    void release(ByteBuffer buffer);
+}
@@ -0,0 +1,146 @@
+package com.mg.nio.buffer;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pools buffers in power-of-two size classes. Each platform thread keeps a small cache per size class
+ * and falls back to a bounded shared queue; virtual threads go straight to the shared queue, as they
+ * usually live for a single connection. Requests above the largest size class are not pooled.
+ */
+public class SizeClassedBufferPool implements BufferPool {
+    public static final int DEFAULT_MIN_SIZE = 1024;
+    public static final int DEFAULT_MAX_SIZE = 1024 * 1024;
+    private static final int THREAD_LOCAL_CACHE_SIZE = 8;
+    private static final int SHARED_CACHE_SIZE = 1024;
+
+    private final boolean direct;
+    private final int minShift;
+    private final int sizeClasses;
+    private final ArrayBlockingQueue<ByteBuffer>[] shared;
+    private final ThreadLocal<LocalCache> localCache;
+    private final LongAdder allocated = new LongAdder();
+    private final LongAdder outstanding = new LongAdder();
+
+    public SizeClassedBufferPool(boolean direct) {
+        this(direct, DEFAULT_MIN_SIZE, DEFAULT_MAX_SIZE);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public SizeClassedBufferPool(boolean direct, int minSize, int maxSize) {
+        if (Integer.bitCount(minSize) != 1 || Integer.bitCount(maxSize) != 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Sizes must be powers of two with minSize <= maxSize, got " + minSize + " and " + maxSize);
+        }
+        this.direct = direct;
+        this.minShift = Integer.numberOfTrailingZeros(minSize);
+        this.sizeClasses = Integer.numberOfTrailingZeros(maxSize) - minShift + 1;
+        this.shared = new ArrayBlockingQueue[sizeClasses];
+        for (int i = 0; i < sizeClasses; i++) {
+            shared[i] = new ArrayBlockingQueue<>(SHARED_CACHE_SIZE);
+        }
+        this.localCache = ThreadLocal.withInitial(() -> new LocalCache(sizeClasses));
+    }
+
+    @Override
+    public ByteBuffer acquire(int capacity) {
+        outstanding.increment();
+        var sizeClass = sizeClass(capacity);
+        if (sizeClass >= sizeClasses) {
+            return allocate(capacity);
+        }
+        var buffer = Thread.currentThread().isVirtual() ? null : localCache.get().poll(sizeClass);
+        if (buffer == null) {
+            buffer = shared[sizeClass].poll();
+        }
+        return buffer != null ? buffer : allocate(1 << (sizeClass + minShift));
+    }
+
+    /**
+     * Releasing a buffer that is already back in the pool would hand it to two owners. Checking for that
+     * means scanning the caches, so it is done only when assertions are enabled, as they are in tests.
+     */
+    @Override
+    public void release(ByteBuffer buffer) {
+        var capacity = buffer.capacity();
+        var sizeClass = sizeClass(capacity);
+        if (sizeClass >= sizeClasses || capacity != 1 << (sizeClass + minShift) || buffer.isDirect() != direct) {
+            outstanding.decrement();
+            return;
+        }
+        assert !isPooled(sizeClass, buffer) : "Buffer released twice";
+        outstanding.decrement();
+        buffer.clear();
+        if (Thread.currentThread().isVirtual() || !localCache.get().offer(sizeClass, buffer)) {
+            shared[sizeClass].offer(buffer);
+        }
+    }
+
+    /**
+     * Number of buffers allocated so far, pooled or not. Flat under steady load once the pool is warm.
+     */
+    public long allocated() {
+        return allocated.sum();
+    }
+
+    /**
+     * Number of buffers acquired and not yet released. Anything above zero once all connections are closed is a leak.
+     */
+    public long outstanding() {
+        return outstanding.sum();
+    }
+
+    private boolean isPooled(int sizeClass, ByteBuffer buffer) {
+        return (!Thread.currentThread().isVirtual() && localCache.get().contains(sizeClass, buffer))
+                || shared[sizeClass].stream().anyMatch(pooled -> pooled == buffer);
+    }
+
+    private ByteBuffer allocate(int capacity) {
+        allocated.increment();
+        return direct ? ByteBuffer.allocateDirect(capacity) : ByteBuffer.allocate(capacity);
+    }
+
+    private int sizeClass(int capacity) {
+        if (capacity <= 1 << minShift) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(capacity - 1) - minShift;
+    }
+
+    private static class LocalCache {
+        private final ByteBuffer[][] buffers;
+        private final int[] counts;
+
+        private LocalCache(int sizeClasses) {
+            this.buffers = new ByteBuffer[sizeClasses][THREAD_LOCAL_CACHE_SIZE];
+            this.counts = new int[sizeClasses];
+        }
+
+        private ByteBuffer poll(int sizeClass) {
+            if (counts[sizeClass] == 0) {
+                return null;
+            }
+            var index = --counts[sizeClass];
+            var buffer = buffers[sizeClass][index];
+            buffers[sizeClass][index] = null;
+            return buffer;
+        }
+
+        private boolean contains(int sizeClass, ByteBuffer buffer) {
+            for (int i = 0; i < counts[sizeClass]; i++) {
+                if (buffers[sizeClass][i] == buffer) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean offer(int sizeClass, ByteBuffer buffer) {
+            if (counts[sizeClass] == THREAD_LOCAL_CACHE_SIZE) {
+                return false;
+            }
+            buffers[sizeClass][counts[sizeClass]++] = buffer;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.mg.nio.buffer;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hands out fixed-size direct buffers carved from large direct slabs. Each slab is a single native allocation
+ * with a single Cleaner, however many connections share it, and a slot goes back to a free stack as soon as
+ * its connection releases it. Requests larger than a slot get an unpooled direct buffer.
+ * <p>
+ * Free slots are kept in stripes picked by thread id, each behind its own lock, so threads acquiring and releasing
+ * at the same time rarely meet. A thread whose stripe is empty takes a slot from another stripe before carving
+ * a new slab. Slabs are never given back to the system while the pool is open and the free stacks only grow, so
+ * the pool keeps the slab memory of its peak load until it is closed.
+ * <p>
+ * Releasing a buffer the pool did not lend, or releasing one twice, would put a slot on a free stack twice. Tracking
+ * lent buffers costs a shared lock, so it is done only when assertions are enabled, as they are in tests.
+ */
+public class SlabBufferPool implements BufferPool, AutoCloseable {
+    public static final int DEFAULT_SLOTS_PER_SLAB = 512;
+
+    private final int slotSize;
+    private final int slotsPerSlab;
+    private final Stripe[] stripes;
+    private final AtomicInteger slabs = new AtomicInteger();
+    private final LongAdder outstanding = new LongAdder();
+    private final Set<ByteBuffer> lent = Collections.newSetFromMap(new IdentityHashMap<>());
+    private volatile boolean closed;
+
+    public SlabBufferPool(int slotSize) {
+        this(slotSize, DEFAULT_SLOTS_PER_SLAB);
+    }
+
+    public SlabBufferPool(int slotSize, int slotsPerSlab) {
+        if (slotSize < 1 || slotsPerSlab < 1 || (long) slotSize * slotsPerSlab > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Slab of " + slotsPerSlab + " slots of " + slotSize + " bytes is not possible");
+        }
+        this.slotSize = slotSize;
+        this.slotsPerSlab = slotsPerSlab;
+        var processors = Runtime.getRuntime().availableProcessors();
+        this.stripes = new Stripe[processors == 1 ? 1 : Integer.highestOneBit(processors - 1) << 1];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    @Override
+    public ByteBuffer acquire(int capacity) {
+        if (closed) {
+            throw new IllegalStateException("Pool is closed");
+        }
+        ByteBuffer buffer;
+        if (capacity > slotSize) {
+            buffer = ByteBuffer.allocateDirect(capacity);
+        } else {
+            buffer = acquireSlot();
+        }
+        assert lend(buffer);
+        outstanding.increment();
+        return buffer;
+    }
+
+    @Override
+    public void release(ByteBuffer buffer) {
+        assert giveBack(buffer) : "Buffer was not acquired from this pool or was already released";
+        outstanding.decrement();
+        if (buffer.capacity() == slotSize) {
+            currentStripe().push(buffer.clear());
+        }
+    }
+
+    /**
+     * Number of native allocations made for pooled slots so far.
+     */
+    public int slabs() {
+        return slabs.get();
+    }
+
+    public long outstanding() {
+        return outstanding.sum();
+    }
+
+    /**
+     * Drops the slabs, their memory is freed once the last buffer carved from them is unreachable.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        for (var stripe : stripes) {
+            stripe.clear();
+        }
+    }
+
+    private ByteBuffer acquireSlot() {
+        var own = currentStripe();
+        var slot = own.pop();
+        for (int i = 0; slot == null && i < stripes.length; i++) {
+            slot = stripes[i].pop();
+        }
+        return slot != null ? slot : own.popFromNewSlab();
+    }
+
+    private Stripe currentStripe() {
+        return stripes[(int) Thread.currentThread().threadId() & (stripes.length - 1)];
+    }
+
+    private boolean lend(ByteBuffer buffer) {
+        synchronized (lent) {
+            lent.add(buffer);
+        }
+        return true;
+    }
+
+    private boolean giveBack(ByteBuffer buffer) {
+        synchronized (lent) {
+            return lent.remove(buffer);
+        }
+    }
+
+    private final class Stripe {
+        private ByteBuffer[] free = new ByteBuffer[slotsPerSlab];
+        private int freeCount;
+
+        private synchronized ByteBuffer pop() {
+            if (freeCount == 0) {
+                return null;
+            }
+            var slot = free[--freeCount];
+            free[freeCount] = null;
+            return slot;
+        }
+
+        /**
+         * Slots released on this stripe may have been carved on another, so the stack grows to take them all.
+         */
+        private synchronized void push(ByteBuffer slot) {
+            if (closed) {
+                return;
+            }
+            if (freeCount == free.length) {
+                var grown = new ByteBuffer[Math.max(slotsPerSlab, free.length * 2)];
+                System.arraycopy(free, 0, grown, 0, freeCount);
+                free = grown;
+            }
+            free[freeCount++] = slot;
+        }
+
+        private synchronized ByteBuffer popFromNewSlab() {
+            if (closed) {
+                throw new IllegalStateException("Pool is closed");
+            }
+            var slab = ByteBuffer.allocateDirect(slotSize * slotsPerSlab);
+            slabs.incrementAndGet();
+            for (int i = slotsPerSlab - 1; i > 0; i--) {
+                push(slab.slice(i * slotSize, slotSize));
+            }
+            return slab.slice(0, slotSize);
+        }
+
+        private synchronized void clear() {
+            free = new ByteBuffer[0];
+            freeCount = 0;
+        }
+    }
+}
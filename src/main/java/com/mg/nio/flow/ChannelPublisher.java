@@ -0,0 +1,146 @@
+package com.mg.nio.flow;
+
+import com.mg.nio.buffer.BufferPool;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Publishes what is read from a blocking channel, one pooled buffer per read. The channel is read only while the
+ * subscriber has outstanding demand, so a slow subscriber leaves data in the socket instead of in memory.
+ * Buffers are handed over to the subscriber, whoever consumes them last gives them back to the pool. A subscriber
+ * that throws from onNext is taken as not having consumed the buffer, the publisher releases it and closes the channel.
+ */
+public class ChannelPublisher implements Flow.Publisher<ByteBuffer> {
+    private static final Logger logger = getLogger(ChannelPublisher.class);
+
+    private final ReadableByteChannel channel;
+    private final BufferPool bufferPool;
+    private final int bufferSize;
+    private final ThreadFactory readerThreadFactory;
+    private final AtomicBoolean subscribed = new AtomicBoolean(false);
+
+    public ChannelPublisher(ReadableByteChannel channel, BufferPool bufferPool, int bufferSize, ThreadFactory readerThreadFactory) {
+        this.channel = channel;
+        this.bufferPool = bufferPool;
+        this.bufferSize = bufferSize;
+        this.readerThreadFactory = readerThreadFactory;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                }
+
+                @Override
+                public void cancel() {
+                }
+            });
+            subscriber.onError(new IllegalStateException("A channel can be read by a single subscriber only"));
+            return;
+        }
+        var subscription = new ReadSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+        subscription.start();
+    }
+
+    private final class ReadSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super ByteBuffer> subscriber;
+        private final AtomicLong demand = new AtomicLong();
+        private volatile boolean cancelled;
+        private volatile Thread reader;
+        private volatile IllegalArgumentException invalidRequest;
+
+        private ReadSubscription(Flow.Subscriber<? super ByteBuffer> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        private void start() {
+            reader = readerThreadFactory.newThread(this::readWhileDemanded);
+            reader.start();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Demand must be positive, got " + n);
+            } else {
+                demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+            wakeUpReader();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            wakeUpReader();
+        }
+
+        private void wakeUpReader() {
+            var reader = this.reader;
+            if (reader != null) {
+                LockSupport.unpark(reader);
+            }
+        }
+
+        private void readWhileDemanded() {
+            ByteBuffer buffer = null;
+            try {
+                while (!cancelled) {
+                    if (invalidRequest != null) {
+                        cancelled = true;
+                        subscriber.onError(invalidRequest);
+                        return;
+                    }
+                    if (demand.get() == 0) {
+                        LockSupport.park(this);
+                        continue;
+                    }
+                    buffer = bufferPool.acquire(bufferSize);
+                    var read = channel.read(buffer);
+                    if (read == -1 || cancelled) {
+                        bufferPool.release(buffer);
+                        buffer = null;
+                        if (read == -1) {
+                            subscriber.onComplete();
+                        }
+                        return;
+                    }
+                    demand.decrementAndGet();
+                    subscriber.onNext(buffer.flip());
+                    buffer = null;
+                }
+            } catch (IOException | RuntimeException e) {
+                if (buffer != null) {
+                    bufferPool.release(buffer);
+                }
+                fail(e);
+            }
+        }
+
+        private void fail(Exception e) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            try {
+                channel.close();
+            } catch (IOException closeError) {
+                logger.warn("Error while closing channel", closeError);
+            }
+            subscriber.onError(e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package com.mg.nio.flow;
+
+import com.mg.nio.buffer.BufferPool;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Writes every received buffer to a blocking channel, returns it to the pool and only then asks for the next one,
+ * so upstream never gets further ahead than a single buffer. Closes the channel when the stream ends.
+ */
+public class ChannelSubscriber implements Flow.Subscriber<ByteBuffer> {
+    private static final Logger logger = getLogger(ChannelSubscriber.class);
+
+    private final WritableByteChannel channel;
+    private final BufferPool bufferPool;
+    private final CompletableFuture<Void> completion = new CompletableFuture<>();
+    private Flow.Subscription subscription;
+
+    public ChannelSubscriber(WritableByteChannel channel, BufferPool bufferPool) {
+        this.channel = channel;
+        this.bufferPool = bufferPool;
+    }
+
+    /**
+     * Completes once the stream ended and the channel is closed.
+     */
+    public CompletableFuture<Void> completion() {
+        return completion;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        subscription.request(1);
+    }
+
+    @Override
+    public void onNext(ByteBuffer item) {
+        try {
+            while (item.hasRemaining()) {
+                channel.write(item);
+            }
+        } catch (IOException | RuntimeException e) {
+            subscription.cancel();
+            onError(e);
+            return;
+        } finally {
+            bufferPool.release(item);
+        }
+        subscription.request(1);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        logger.debug("Closing channel after stream error", throwable);
+        close();
+        completion.completeExceptionally(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        close();
+        completion.complete(null);
+    }
+
+    private void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("Error while closing channel", e);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.mg.nio.flow;
+
+import com.mg.nio.buffer.BufferPool;
+import com.mg.nio.buffer.SizeClassedBufferPool;
+import com.mg.nio.handler.Handler;
+import com.mg.nio.transform.UppercaseTransformer;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Supplier;
+
+/**
+ * Connects each connection's inbound {@link ChannelPublisher} through a processor to an outbound
+ * {@link ChannelSubscriber}. Returns right away, the connection is read on its own virtual thread and closed
+ * when the stream ends.
+ */
+public class FlowHandler implements Handler<SocketChannel> {
+    public static final int DEFAULT_BUFFER_SIZE = 8 * 1024;
+
+    private final Supplier<? extends Flow.Processor<ByteBuffer, ByteBuffer>> processors;
+    private final BufferPool bufferPool;
+    private final int bufferSize;
+    private final ThreadFactory readerThreadFactory = Thread.ofVirtual().name("flow-reader-", 0).factory();
+
+    public FlowHandler() {
+        this(() -> new TransformProcessor(new UppercaseTransformer()));
+    }
+
+    public FlowHandler(Supplier<? extends Flow.Processor<ByteBuffer, ByteBuffer>> processors) {
+        this(processors, new SizeClassedBufferPool(true), DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param processors creates the processor of every new connection, processors keep per-subscription state
+     */
+    public FlowHandler(Supplier<? extends Flow.Processor<ByteBuffer, ByteBuffer>> processors, BufferPool bufferPool, int bufferSize) {
+        this.processors = processors;
+        this.bufferPool = bufferPool;
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public void handle(SocketChannel socket) {
+        var processor = processors.get();
+        processor.subscribe(new ChannelSubscriber(socket, bufferPool));
+        new ChannelPublisher(socket, bufferPool, bufferSize, readerThreadFactory).subscribe(processor);
+    }
+}
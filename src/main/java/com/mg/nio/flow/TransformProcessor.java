@@ -0,0 +1,121 @@
+package com.mg.nio.flow;
+
+import com.mg.nio.transform.ByteTransformer;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.Flow;
+
+/**
+ * Applies a {@link ByteTransformer} in place to every buffer passing through. Demand from downstream is passed
+ * upstream one to one, so the processor never holds items of its own.
+ */
+public class TransformProcessor implements Flow.Processor<ByteBuffer, ByteBuffer> {
+    private final ByteTransformer transformer;
+    private Flow.Subscriber<? super ByteBuffer> downstream;
+    private Flow.Subscription upstream;
+    private long pendingDemand;
+    private boolean pendingCancel;
+    private Throwable pendingError;
+    private boolean pendingComplete;
+
+    public TransformProcessor(ByteTransformer transformer) {
+        this.transformer = transformer;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuffer> subscriber) {
+        Throwable error;
+        boolean complete;
+        synchronized (this) {
+            if (downstream != null) {
+                throw new IllegalStateException("Processor already has a subscriber");
+            }
+            downstream = subscriber;
+            error = pendingError;
+            complete = pendingComplete;
+        }
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {
+                upstream(n, false);
+            }
+
+            @Override
+            public void cancel() {
+                upstream(0, true);
+            }
+        });
+        if (error != null) {
+            subscriber.onError(error);
+        } else if (complete) {
+            subscriber.onComplete();
+        }
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        long demand;
+        boolean cancel;
+        synchronized (this) {
+            upstream = subscription;
+            demand = pendingDemand;
+            cancel = pendingCancel;
+        }
+        if (cancel) {
+            subscription.cancel();
+        } else if (demand > 0) {
+            subscription.request(demand);
+        }
+    }
+
+    @Override
+    public void onNext(ByteBuffer item) {
+        transformer.transform(item);
+        downstream.onNext(item);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        Flow.Subscriber<? super ByteBuffer> subscriber;
+        synchronized (this) {
+            subscriber = downstream;
+            if (subscriber == null) {
+                pendingError = throwable;
+            }
+        }
+        if (subscriber != null) {
+            subscriber.onError(throwable);
+        }
+    }
+
+    @Override
+    public void onComplete() {
+        Flow.Subscriber<? super ByteBuffer> subscriber;
+        synchronized (this) {
+            subscriber = downstream;
+            if (subscriber == null) {
+                pendingComplete = true;
+            }
+        }
+        if (subscriber != null) {
+            subscriber.onComplete();
+        }
+    }
+
+    private void upstream(long n, boolean cancel) {
+        Flow.Subscription subscription;
+        synchronized (this) {
+            subscription = upstream;
+            if (subscription == null) {
+                pendingDemand = Math.max(pendingDemand, pendingDemand + n);
+                pendingCancel |= cancel;
+                return;
+            }
+        }
+        if (cancel) {
+            subscription.cancel();
+        } else {
+            subscription.request(n);
+        }
+    }
+}
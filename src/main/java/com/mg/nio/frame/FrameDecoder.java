@@ -0,0 +1,42 @@
+package com.mg.nio.frame;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+/**
+ * Decodes frames made of a 4 byte big-endian length followed by that many bytes. Frames are handed out
+ * as slices of the read buffer rather than copies, so they are only valid until the buffer is compacted.
+ */
+public class FrameDecoder {
+    public static final int HEADER_LENGTH = Integer.BYTES;
+
+    private final int maxFrameLength;
+
+    public FrameDecoder(int maxFrameLength) {
+        this.maxFrameLength = maxFrameLength;
+    }
+
+    /**
+     * Consumes every complete frame between the buffer's position and limit, leaving the position
+     * at the start of the first incomplete one.
+     *
+     * @return the number of frames decoded
+     */
+    public int decode(ByteBuffer buffer, Consumer<ByteBuffer> onFrame) {
+        var frames = 0;
+        while (buffer.remaining() >= HEADER_LENGTH) {
+            var position = buffer.position();
+            var length = buffer.getInt(position);
+            if (length < 0 || length > maxFrameLength) {
+                throw new FrameTooLongException(length, maxFrameLength);
+            }
+            if (buffer.remaining() < HEADER_LENGTH + length) {
+                break;
+            }
+            onFrame.accept(buffer.slice(position + HEADER_LENGTH, length));
+            buffer.position(position + HEADER_LENGTH + length);
+            frames++;
+        }
+        return frames;
+    }
+}
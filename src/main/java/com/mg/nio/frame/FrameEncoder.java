@@ -0,0 +1,77 @@
+package com.mg.nio.frame;
+
+import com.mg.nio.buffer.BufferPool;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+
+/**
+ * Collects response frames and writes their headers and bodies with a single gathering write,
+ * so a batch of small responses costs one system call instead of two per frame.
+ * The headers live in one block taken from the pool and given back on {@link #close()}.
+ */
+public class FrameEncoder implements AutoCloseable {
+    private final BufferPool bufferPool;
+    private final ByteBuffer headerBlock;
+    private final ByteBuffer[] buffers;
+    private final ByteBuffer[] headers;
+    private int frames;
+    private int flushed;
+
+    public FrameEncoder(int maxFramesPerBatch, BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+        this.headerBlock = bufferPool.acquire(maxFramesPerBatch * FrameDecoder.HEADER_LENGTH);
+        this.buffers = new ByteBuffer[maxFramesPerBatch * 2];
+        this.headers = new ByteBuffer[maxFramesPerBatch];
+        for (int i = 0; i < maxFramesPerBatch; i++) {
+            headers[i] = headerBlock.slice(i * FrameDecoder.HEADER_LENGTH, FrameDecoder.HEADER_LENGTH);
+        }
+    }
+
+    public boolean isFull() {
+        return frames * 2 == buffers.length;
+    }
+
+    /**
+     * Queues the body as a frame. The body must stay untouched until {@link #flush} returns true.
+     */
+    public void add(ByteBuffer body) {
+        if (isFull()) {
+            throw new IllegalStateException("Batch of " + frames + " frames is full, flush it first");
+        }
+        if (flushed > 0) {
+            throw new IllegalStateException("Batch is partially written, finish flushing it first");
+        }
+        buffers[frames * 2] = headers[frames].clear().putInt(0, body.remaining());
+        buffers[frames * 2 + 1] = body;
+        frames++;
+    }
+
+    /**
+     * Writes the queued frames. A blocking channel takes them all in one call. A non-blocking one may stop
+     * early, in which case the rest stays queued for the next call once the channel is writable.
+     *
+     * @return true when every queued frame has been written
+     */
+    public boolean flush(GatheringByteChannel channel) throws IOException {
+        var length = frames * 2;
+        while (flushed < length) {
+            var written = channel.write(buffers, flushed, length - flushed);
+            while (flushed < length && !buffers[flushed].hasRemaining()) {
+                buffers[flushed++] = null;
+            }
+            if (written == 0 && flushed < length) {
+                return false;
+            }
+        }
+        frames = 0;
+        flushed = 0;
+        return true;
+    }
+
+    @Override
+    public void close() {
+        bufferPool.release(headerBlock);
+    }
+}
@@ -0,0 +1,20 @@
+package com.mg.nio.frame;
+
+import com.mg.nio.transform.ByteTransformer;
+
+import java.nio.ByteBuffer;
+
+@FunctionalInterface
+public interface FrameProcessor {
+    /**
+     * @return the response body, which may be the request frame itself transformed in place
+     */
+    ByteBuffer process(ByteBuffer frame);
+
+    static FrameProcessor of(ByteTransformer transformer) {
+        return frame -> {
+            transformer.transform(frame);
+            return frame;
+        };
+    }
+}
@@ -0,0 +1,9 @@
+package com.mg.nio.frame;
+
+public class FrameTooLongException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public FrameTooLongException(int length, int maxFrameLength) {
+        super("Frame length " + length + " is outside of 0-" + maxFrameLength);
+    }
+}
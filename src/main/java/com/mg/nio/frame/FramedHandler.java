@@ -0,0 +1,68 @@
+package com.mg.nio.frame;
+
+import com.mg.nio.buffer.BufferPool;
+import com.mg.nio.buffer.SizeClassedBufferPool;
+import com.mg.nio.handler.Handler;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Answers every length-prefixed frame with a processed frame. All frames decoded from one read are answered
+ * with one gathering write, so clients pipelining many small messages pay one system call per batch.
+ * Needs a blocking channel, {@link FramedSelectionKeyHandler} serves non-blocking ones.
+ */
+public class FramedHandler implements Handler<SocketChannel> {
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_FRAMES_PER_BATCH = 512;
+
+    private final FrameProcessor processor;
+    private final BufferPool bufferPool;
+    private final int bufferSize;
+
+    public FramedHandler(FrameProcessor processor) {
+        this(processor, new SizeClassedBufferPool(true), DEFAULT_BUFFER_SIZE);
+    }
+
+    public FramedHandler(FrameProcessor processor, BufferPool bufferPool, int bufferSize) {
+        this.processor = processor;
+        this.bufferPool = bufferPool;
+        this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public void handle(SocketChannel socket) {
+        if (!socket.isBlocking()) {
+            throw new IllegalArgumentException("FramedHandler needs a blocking channel, use FramedSelectionKeyHandler instead");
+        }
+        var buffer = bufferPool.acquire(bufferSize);
+        try (socket; var encoder = new FrameEncoder(MAX_FRAMES_PER_BATCH, bufferPool)) {
+            var decoder = new FrameDecoder(buffer.capacity() - FrameDecoder.HEADER_LENGTH);
+            while (socket.read(buffer) != -1) {
+                buffer.flip();
+                decoder.decode(buffer, frame -> {
+                    if (encoder.isFull()) {
+                        flush(encoder, socket);
+                    }
+                    encoder.add(processor.process(frame));
+                });
+                flush(encoder, socket);
+                buffer.compact();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+    private static void flush(FrameEncoder encoder, SocketChannel socket) {
+        try {
+            encoder.flush(socket);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.mg.nio.frame;
+
+import com.mg.nio.buffer.BufferPool;
+import com.mg.nio.buffer.SizeClassedBufferPool;
+import com.mg.nio.handler.ConnectionState;
+import com.mg.nio.handler.Handler;
+import com.mg.nio.handler.OutboundQueue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Selector counterpart of {@link FramedHandler}. Responses go through a per-connection {@link OutboundQueue},
+ * which is flushed once reading would block, so a client pipelining many small frames costs one write per batch.
+ * OP_WRITE is registered only when the socket send buffer is full, and reading stops until it drains.
+ */
+public class FramedSelectionKeyHandler implements Handler<SelectionKey> {
+    private static final int MAX_READS_PER_EVENT = 16;
+
+    private final FrameProcessor processor;
+    private final BufferPool bufferPool;
+    private final LongAdder writeCalls = new LongAdder();
+
+    public FramedSelectionKeyHandler(FrameProcessor processor) {
+        this(processor, new SizeClassedBufferPool(true));
+    }
+
+    public FramedSelectionKeyHandler(FrameProcessor processor, BufferPool bufferPool) {
+        this.processor = processor;
+        this.bufferPool = bufferPool;
+    }
+
+    @Override
+    public void handle(SelectionKey key) {
+        try {
+            if (key.isReadable()) {
+                read(key);
+            } else if (key.isWritable()) {
+                write(key);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Number of writes issued to sockets by all connections served by this handler.
+     */
+    public long writeCalls() {
+        return writeCalls.sum();
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        var socket = (SocketChannel) key.channel();
+        var state = (ConnectionState) key.attachment();
+        var buffer = state.buffer();
+        var queue = outboundQueue(state);
+        var decoder = new FrameDecoder(buffer.capacity() - FrameDecoder.HEADER_LENGTH);
+        for (int reads = 0; reads < MAX_READS_PER_EVENT; reads++) {
+            var read = socket.read(buffer);
+            if (read == -1) {
+                ConnectionState.close(key);
+                return;
+            }
+            if (read == 0) {
+                break;
+            }
+            buffer.flip();
+            decoder.decode(buffer, frame -> {
+                var response = processor.process(frame);
+                queue.putInt(response.remaining());
+                queue.add(response);
+            });
+            buffer.compact();
+            if (!queue.flushIfDue(socket)) {
+                key.interestOps(SelectionKey.OP_WRITE);
+                return;
+            }
+        }
+        if (!queue.flush(socket)) {
+            key.interestOps(SelectionKey.OP_WRITE);
+        }
+    }
+
+    private void write(SelectionKey key) throws IOException {
+        var socket = (SocketChannel) key.channel();
+        var queue = outboundQueue((ConnectionState) key.attachment());
+        if (queue.flush(socket)) {
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+    private OutboundQueue outboundQueue(ConnectionState state) {
+        if (state.context() instanceof OutboundQueue queue) {
+            return queue;
+        }
+        var queue = new OutboundQueue(bufferPool, OutboundQueue.DEFAULT_CHUNK_SIZE, OutboundQueue.DEFAULT_FLUSH_THRESHOLD,
+                OutboundQueue.DEFAULT_MAX_DELAY_NANOS, writeCalls);
+        state.context(queue);
+        return queue;
+    }
+}
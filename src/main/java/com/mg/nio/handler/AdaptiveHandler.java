@@ -0,0 +1,228 @@
+package com.mg.nio.handler;
+
+import com.mg.nio.buffer.SizeClassedBufferPool;
+import com.mg.nio.timeout.IdleTimeoutSettings;
+import com.mg.nio.transform.ByteTransformer;
+import com.mg.nio.transform.UppercaseTransformer;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.SocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Serves connections thread-per-connection on a small pool while there are at most {@code threshold} of them,
+ * and on a {@link SelectorWorkerGroupHandler} above that. Once the threshold is exceeded, new connections go
+ * straight to the selectors and blocking connections that stay idle for {@code idleBeforeMigration} are switched
+ * to non-blocking mode and handed over too, giving their thread back. Connections stay on the selectors once
+ * migrated, so a connection changes mode at most once.
+ */
+public class AdaptiveHandler implements Handler<SocketChannel>, AutoCloseable {
+    private static final Logger logger = getLogger(AdaptiveHandler.class);
+    public static final Duration DEFAULT_IDLE_BEFORE_MIGRATION = Duration.ofMillis(100);
+
+    private final int threshold;
+    private final int idleBeforeMigrationMillis;
+    private final ExecutorService blockingPool;
+    private final UppercaseNewIoHandler blockingHandler;
+    private final SelectorWorkerGroupHandler selectors;
+    private final Map<SocketChannel, ConnectionMode> modes = new ConcurrentHashMap<>();
+    private final AtomicInteger activeConnections = new AtomicInteger();
+    private final AtomicInteger blockingConnections = new AtomicInteger();
+    private final LongAdder migratedConnections = new LongAdder();
+    private volatile boolean closed;
+
+    public AdaptiveHandler(int threshold) {
+        this(new UppercaseTransformer(), threshold, Runtime.getRuntime().availableProcessors(), DEFAULT_IDLE_BEFORE_MIGRATION);
+    }
+
+    /**
+     * @param threshold           number of connections served in blocking mode, also the size of the blocking pool
+     * @param idleBeforeMigration how long a blocking connection has to wait for input before it may be migrated
+     */
+    public AdaptiveHandler(ByteTransformer transformer, int threshold, int selectorWorkers, Duration idleBeforeMigration) {
+        if (threshold < 1) {
+            throw new IllegalArgumentException("Threshold has to be positive, got " + threshold);
+        }
+        this.threshold = threshold;
+        this.idleBeforeMigrationMillis = Math.toIntExact(Math.max(1, idleBeforeMigration.toMillis()));
+        this.blockingPool = Executors.newFixedThreadPool(threshold, Thread.ofPlatform().name("adaptive-blocking-", 0).factory());
+        this.blockingHandler = new UppercaseNewIoHandler(transformer, new SizeClassedBufferPool(false));
+        this.selectors = new SelectorWorkerGroupHandler(new UppercaseSelectionKeyHandler(transformer), selectorWorkers,
+                new SizeClassedBufferPool(true), IdleTimeoutSettings.DISABLED, this::onClosed);
+    }
+
+    @Override
+    public void handle(SocketChannel socket) {
+        if (activeConnections.incrementAndGet() <= threshold) {
+            blockingConnections.incrementAndGet();
+            modes.put(socket, ConnectionMode.BLOCKING);
+            try {
+                blockingPool.execute(() -> serveBlocking(socket));
+            } catch (RejectedExecutionException e) {
+                close(socket);
+                onClosed(socket);
+                throw e;
+            }
+        } else {
+            modes.put(socket, ConnectionMode.SELECTOR);
+            selectors.handle(socket);
+        }
+    }
+
+    public int activeConnections() {
+        return activeConnections.get();
+    }
+
+    public int blockingConnections() {
+        return blockingConnections.get();
+    }
+
+    public int selectorConnections() {
+        return activeConnections.get() - blockingConnections.get();
+    }
+
+    /**
+     * Number of connections moved from blocking to selector mode since start.
+     */
+    public long migratedConnections() {
+        return migratedConnections.sum();
+    }
+
+    /**
+     * Current mode of every open connection, by remote address.
+     */
+    public Map<SocketAddress, ConnectionMode> connectionModes() {
+        var snapshot = new HashMap<SocketAddress, ConnectionMode>();
+        modes.forEach((socket, mode) -> {
+            try {
+                snapshot.put(socket.getRemoteAddress(), mode);
+            } catch (IOException e) {
+                logger.debug("Skipping connection closed while taking snapshot");
+            }
+        });
+        return snapshot;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        blockingPool.shutdown();
+        selectors.close();
+    }
+
+    /**
+     * Reads through the socket's stream, the only blocking read that honours SO_TIMEOUT, so the echo loop ends with
+     * {@link SocketTimeoutException} whenever the connection was idle for {@code idleBeforeMigration}.
+     */
+    private void serveBlocking(SocketChannel socket) {
+        var migrated = false;
+        try {
+            socket.socket().setSoTimeout(idleBeforeMigrationMillis);
+            var channel = new TimedReadChannel(socket);
+            while (!closed) {
+                try {
+                    blockingHandler.serve(channel);
+                    return;
+                } catch (SocketTimeoutException e) {
+                    if (activeConnections.get() > threshold) {
+                        migrated = migrate(socket);
+                        return;
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.error("Error while handling client connection", e);
+        } finally {
+            if (!migrated) {
+                close(socket);
+                onClosed(socket);
+            }
+        }
+    }
+
+    private boolean migrate(SocketChannel socket) throws IOException {
+        socket.socket().setSoTimeout(0);
+        socket.configureBlocking(false);
+        if (modes.replace(socket, ConnectionMode.BLOCKING, ConnectionMode.SELECTOR)) {
+            blockingConnections.decrementAndGet();
+            migratedConnections.increment();
+            logger.debug("Migrating idle connection {} to selector mode", socket.getRemoteAddress());
+            selectors.handle(socket);
+            return true;
+        }
+        return false;
+    }
+
+    private void onClosed(SocketChannel socket) {
+        var mode = modes.remove(socket);
+        if (mode == null) {
+            return;
+        }
+        activeConnections.decrementAndGet();
+        if (mode == ConnectionMode.BLOCKING) {
+            blockingConnections.decrementAndGet();
+        }
+    }
+
+    private static void close(SocketChannel socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            logger.warn("Error while closing client connection", e);
+        }
+    }
+
+    /**
+     * Blocking channel whose reads time out. Reads go into the backing array of the pooled heap buffer, writes go
+     * straight to the socket.
+     */
+    private static final class TimedReadChannel implements ByteChannel {
+        private final SocketChannel socket;
+        private final InputStream in;
+
+        private TimedReadChannel(SocketChannel socket) throws IOException {
+            this.socket = socket;
+            this.in = socket.socket().getInputStream();
+        }
+
+        @Override
+        public int read(ByteBuffer dst) throws IOException {
+            var read = in.read(dst.array(), dst.arrayOffset() + dst.position(), dst.remaining());
+            if (read > 0) {
+                dst.position(dst.position() + read);
+            }
+            return read;
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            return socket.write(src);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return socket.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.mg.nio.handler;
+
+import com.mg.nio.logging.ConnectionEvent;
+import com.mg.nio.logging.ConnectionEventLog;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.nio.channels.SocketChannel;
+import java.util.function.Function;
+
+public class AsyncLoggingHandler<T> implements Handler<T> {
+    private final Handler<T> decorated;
+    private final ConnectionEventLog eventLog;
+    private final Function<T, SocketAddress> remoteAddress;
+
+    public AsyncLoggingHandler(Handler<T> decorated, ConnectionEventLog eventLog, Function<T, SocketAddress> remoteAddress) {
+        this.decorated = decorated;
+        this.eventLog = eventLog;
+        this.remoteAddress = remoteAddress;
+    }
+
+    public static AsyncLoggingHandler<Socket> forSocket(Handler<Socket> decorated, ConnectionEventLog eventLog) {
+        return new AsyncLoggingHandler<>(decorated, eventLog, Socket::getRemoteSocketAddress);
+    }
+
+    public static AsyncLoggingHandler<SocketChannel> forSocketChannel(Handler<SocketChannel> decorated, ConnectionEventLog eventLog) {
+        return new AsyncLoggingHandler<>(decorated, eventLog, AsyncLoggingHandler::remoteAddress);
+    }
+
+    @Override
+    public void handle(T socket) {
+        var sampled = eventLog.sampleConnection();
+        var socketAddress = remoteAddress.apply(socket);
+        if (sampled) {
+            eventLog.record(ConnectionEvent.ACCEPTED, socketAddress, null);
+        }
+        try {
+            decorated.handle(socket);
+        } catch (RuntimeException e) {
+            eventLog.record(ConnectionEvent.FAILED, socketAddress, e);
+            throw e;
+        } finally {
+            if (sampled) {
+                eventLog.record(ConnectionEvent.FINISHED, socketAddress, null);
+            }
+        }
+    }
+
+    private static SocketAddress remoteAddress(SocketChannel socket) {
+        try {
+            return socket.getRemoteAddress();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
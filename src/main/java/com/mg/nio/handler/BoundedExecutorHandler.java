@@ -0,0 +1,122 @@
+package com.mg.nio.handler;
+
+import com.mg.nio.metrics.ServerMetrics;
+import org.slf4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Hands connections to a fixed pool through a bounded queue. When the queue is full the
+ * {@link RejectionPolicy} decides which connection is given up, so latency stays bounded under overload
+ * instead of connections queueing without limit.
+ */
+public class BoundedExecutorHandler<T extends Closeable> implements Handler<T>, AutoCloseable {
+    private static final Logger logger = getLogger(BoundedExecutorHandler.class);
+
+    private final Handler<T> decorated;
+    private final ServerMetrics metrics;
+    private final BiConsumer<T, Throwable> onFailure;
+    private final ThreadPoolExecutor executor;
+
+    public BoundedExecutorHandler(Handler<T> decorated, int threads, int queueCapacity, RejectionPolicy rejectionPolicy) {
+        this(decorated, threads, queueCapacity, rejectionPolicy, new ServerMetrics(), BoundedExecutorHandler::logAndClose);
+    }
+
+    public BoundedExecutorHandler(Handler<T> decorated, int threads, int queueCapacity, RejectionPolicy rejectionPolicy,
+                                  ServerMetrics metrics, BiConsumer<T, Throwable> onFailure) {
+        this.decorated = decorated;
+        this.metrics = metrics;
+        this.onFailure = onFailure;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), (task, executor) -> reject(rejectionPolicy, (QueuedConnection) task, executor));
+        this.executor.prestartAllCoreThreads();
+    }
+
+    @Override
+    public void handle(T socket) {
+        var queuedAt = System.nanoTime();
+        executor.execute(new QueuedConnection(socket, () -> serve(socket, queuedAt)));
+    }
+
+    public int queuedConnections() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public void close() {
+        for (var task : executor.shutdownNow()) {
+            closeQuietly(((QueuedConnection) task).socket);
+        }
+    }
+
+    private void reject(RejectionPolicy rejectionPolicy, QueuedConnection rejected, ThreadPoolExecutor executor) {
+        if (executor.isShutdown()) {
+            metrics.onRejected();
+            closeQuietly(rejected.socket);
+            return;
+        }
+        switch (rejectionPolicy) {
+            case REJECT_CLOSE -> {
+                metrics.onRejected();
+                closeQuietly(rejected.socket);
+            }
+            case CALLER_RUNS -> rejected.run();
+            case SHED_OLDEST -> {
+                var oldest = (QueuedConnection) executor.getQueue().poll();
+                if (oldest != null) {
+                    metrics.onRejected();
+                    closeQuietly(oldest.socket);
+                }
+                executor.execute(rejected);
+            }
+        }
+    }
+
+    private static <T extends Closeable> void logAndClose(T socket, Throwable error) {
+        logger.error("Error while handling client connection", error);
+        closeQuietly(socket);
+    }
+
+    private static void closeQuietly(Closeable socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            logger.warn("Error while closing client connection", e);
+        }
+    }
+
+    private void serve(T socket, long queuedAt) {
+        metrics.recordAcceptQueueWait(System.nanoTime() - queuedAt);
+        try {
+            decorated.handle(socket);
+        } catch (Exception e) {
+            metrics.onHandlerError();
+            onFailure.accept(socket, e);
+        }
+    }
+
+    /**
+     * Keeps the socket next to the work, so connections still queued can be closed when they are shed or on shutdown.
+     */
+    private static final class QueuedConnection implements Runnable {
+        private final Closeable socket;
+        private final Runnable work;
+
+        private QueuedConnection(Closeable socket, Runnable work) {
+            this.socket = socket;
+            this.work = work;
+        }
+
+        @Override
+        public void run() {
+            work.run();
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.mg.nio.handler;
+
+/**
+ * How an {@link AdaptiveHandler} currently serves a connection.
+ */
+public enum ConnectionMode {
+    BLOCKING, SELECTOR
+}
@@ -0,0 +1,86 @@
+package com.mg.nio.handler;
+
+import com.mg.nio.buffer.BufferPool;
+import com.mg.nio.timeout.IdleTimeout;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+public class ConnectionState {
+    private static final Logger logger = getLogger(ConnectionState.class);
+    public static final int DEFAULT_BUFFER_SIZE = 8 * 1024;
+
+    private final BufferPool bufferPool;
+    private ByteBuffer buffer;
+    private AutoCloseable context;
+    private IdleTimeout idleTimeout = IdleTimeout.NONE;
+
+    public ConnectionState(BufferPool bufferPool) {
+        this(bufferPool, DEFAULT_BUFFER_SIZE);
+    }
+
+    public ConnectionState(BufferPool bufferPool, int bufferSize) {
+        this.bufferPool = bufferPool;
+        this.buffer = bufferPool.acquire(bufferSize);
+    }
+
+    public static void close(SelectionKey key) throws IOException {
+        key.cancel();
+        if (key.attachment() instanceof ConnectionState state) {
+            state.release();
+        }
+        key.channel().close();
+    }
+
+    /**
+     * Tells the idle timeout of the connection that the handler made progress on it.
+     */
+    public static void touch(SelectionKey key) {
+        if (key.isValid() && key.attachment() instanceof ConnectionState state) {
+            state.idleTimeout.onActivity((key.interestOps() & SelectionKey.OP_WRITE) != 0);
+        }
+    }
+
+    public ByteBuffer buffer() {
+        return buffer;
+    }
+
+    /**
+     * Handler specific state of the connection, closed together with it.
+     */
+    public AutoCloseable context() {
+        return context;
+    }
+
+    public void context(AutoCloseable context) {
+        this.context = context;
+    }
+
+    public IdleTimeout idleTimeout() {
+        return idleTimeout;
+    }
+
+    public void idleTimeout(IdleTimeout idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public void release() {
+        idleTimeout.cancel();
+        if (buffer != null) {
+            bufferPool.release(buffer);
+            buffer = null;
+        }
+        if (context != null) {
+            try {
+                context.close();
+            } catch (Exception e) {
+                logger.warn("Error while closing connection context", e);
+            }
+            context = null;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.mg.nio.handler;
+
+import java.io.IOException;
+import java.nio.channels.ClosedChannelException;
+
+/**
+ * Tells peer disconnects apart from real failures, so handlers can log a client going away at debug.
+ */
+final class Disconnects {
+
+    private Disconnects() {
+    }
+
+    /**
+     * Whether {@code e}, or any of its causes, is a reset or broken pipe from the peer or a channel closed on our
+     * side, as it is when a client leaves with requests in flight or the server shuts down.
+     */
+    static boolean isDisconnect(Throwable e) {
+        for (var cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ClosedChannelException) {
+                return true;
+            }
+            var message = cause.getMessage();
+            if (cause instanceof IOException && message != null
+                    && (message.startsWith("Connection reset") || message.startsWith("Broken pipe"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
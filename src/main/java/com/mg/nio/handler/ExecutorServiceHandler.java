@@ -1,18 +1,34 @@
 package com.mg.nio.handler;
 
+import com.mg.nio.metrics.ServerMetrics;
+
 import java.util.concurrent.ExecutorService;
 
 public class ExecutorServiceHandler<T> implements Handler<T> {
     private final Handler<T> decorated;
     private final ExecutorService executorService;
+    private final ServerMetrics metrics;
 
     public ExecutorServiceHandler(Handler<T> decorated, ExecutorService executorService) {
+        this(decorated, executorService, null);
+    }
+
+    public ExecutorServiceHandler(Handler<T> decorated, ExecutorService executorService, ServerMetrics metrics) {
         this.decorated = decorated;
         this.executorService = executorService;
+        this.metrics = metrics;
     }
 
     @Override
     public void handle(T socket) {
-        executorService.submit(() -> decorated.handle(socket));
+        if (metrics == null) {
+            executorService.submit(() -> decorated.handle(socket));
+            return;
+        }
+        var submitted = System.nanoTime();
+        executorService.submit(() -> {
+            metrics.recordAcceptQueueWait(System.nanoTime() - submitted);
+            decorated.handle(socket);
+        });
     }
 }
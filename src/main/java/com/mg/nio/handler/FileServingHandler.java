@@ -0,0 +1,66 @@
+package com.mg.nio.handler;
+
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Reads a file name terminated by a new line, sends the file and closes the connection.
+ * Needs a blocking channel, {@link FileServingSelectionKeyHandler} serves non-blocking ones.
+ */
+public class FileServingHandler implements Handler<SocketChannel> {
+    private static final Logger logger = getLogger(FileServingHandler.class);
+    static final int MAX_REQUEST_LINE = 1024;
+
+    private final StaticFiles files;
+
+    public FileServingHandler(StaticFiles files) {
+        this.files = files;
+    }
+
+    @Override
+    public void handle(SocketChannel socket) {
+        try (socket) {
+            if (!socket.isBlocking()) {
+                throw new IllegalArgumentException("FileServingHandler needs a blocking channel, use FileServingSelectionKeyHandler instead");
+            }
+            var request = ByteBuffer.allocate(MAX_REQUEST_LINE);
+            String name;
+            while ((name = fileName(request)) == null) {
+                if (!request.hasRemaining() || socket.read(request) == -1) {
+                    return;
+                }
+            }
+            try (var transfer = files.open(name)) {
+                while (!transfer.transferTo(socket)) {
+                    // a blocking channel takes at least one byte per call, a truncated file fails the transfer
+                }
+            }
+        } catch (NoSuchFileException e) {
+            logger.debug("Requested file {} does not exist", e.getFile());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return the file name once the request buffer holds a whole line, null before that
+     */
+    static String fileName(ByteBuffer request) {
+        for (int i = 0; i < request.position(); i++) {
+            if (request.get(i) == '\n') {
+                var line = new byte[i];
+                request.get(0, line);
+                return new String(line, StandardCharsets.US_ASCII).strip();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,71 @@
+package com.mg.nio.handler;
+
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.nio.file.NoSuchFileException;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Same protocol as {@link FileServingHandler} on a selector loop. A transfer the socket cannot take in one
+ * go is kept as the connection's context and resumed on the next OP_WRITE.
+ */
+public class FileServingSelectionKeyHandler implements Handler<SelectionKey> {
+    private static final Logger logger = getLogger(FileServingSelectionKeyHandler.class);
+
+    private final StaticFiles files;
+
+    public FileServingSelectionKeyHandler(StaticFiles files) {
+        this.files = files;
+    }
+
+    @Override
+    public void handle(SelectionKey key) {
+        try {
+            if (key.isReadable()) {
+                read(key);
+            } else if (key.isWritable()) {
+                write(key);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        var socket = (SocketChannel) key.channel();
+        var state = (ConnectionState) key.attachment();
+        var request = state.buffer().limit(FileServingHandler.MAX_REQUEST_LINE);
+        if (socket.read(request) == -1) {
+            ConnectionState.close(key);
+            return;
+        }
+        var name = FileServingHandler.fileName(request);
+        if (name == null) {
+            if (!request.hasRemaining()) {
+                ConnectionState.close(key);
+            }
+            return;
+        }
+        try {
+            state.context(files.open(name));
+        } catch (NoSuchFileException e) {
+            logger.debug("Requested file {} does not exist", e.getFile());
+            ConnectionState.close(key);
+            return;
+        }
+        key.interestOps(SelectionKey.OP_WRITE);
+        write(key);
+    }
+
+    private void write(SelectionKey key) throws IOException {
+        var transfer = (FileTransfer) ((ConnectionState) key.attachment()).context();
+        if (transfer.transferTo((SocketChannel) key.channel())) {
+            ConnectionState.close(key);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.mg.nio.handler;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * A file being sent to one client, either with {@link FileChannel#transferTo} or from a memory-mapped
+ * buffer. Each call sends as much as the channel accepts and remembers where it stopped, so the same
+ * transfer works on blocking channels and resumes on non-blocking ones.
+ */
+public class FileTransfer implements AutoCloseable {
+    private final FileChannel file;
+    private final ByteBuffer mapped;
+    private long position;
+    private final long size;
+
+    private FileTransfer(FileChannel file, ByteBuffer mapped, long size) {
+        this.file = file;
+        this.mapped = mapped;
+        this.size = size;
+    }
+
+    static FileTransfer of(FileChannel file) throws IOException {
+        return new FileTransfer(file, null, file.size());
+    }
+
+    static FileTransfer of(ByteBuffer mapped) {
+        var duplicate = mapped.duplicate();
+        return new FileTransfer(null, duplicate, duplicate.remaining());
+    }
+
+    /**
+     * @return true once the whole file has been sent
+     * @throws IOException also when the file was truncated below the size it had when the transfer started
+     */
+    public boolean transferTo(WritableByteChannel channel) throws IOException {
+        if (mapped != null) {
+            channel.write(mapped);
+            return !mapped.hasRemaining();
+        }
+        while (position < size) {
+            var transferred = file.transferTo(position, size - position, channel);
+            if (transferred == 0) {
+                if (position >= file.size()) {
+                    throw new IOException("File shrank to " + file.size() + " bytes while sending " + size);
+                }
+                return false;
+            }
+            position += transferred;
+        }
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (file != null) {
+            file.close();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.mg.nio.handler;
+
+import com.mg.nio.buffer.BufferPool;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-connection queue of outgoing bytes. Small responses are copied into pooled chunks and written
+ * together with one gathering write once enough bytes are pending, the oldest pending byte waited too long,
+ * or the caller runs out of input and calls {@link #flush(GatheringByteChannel)}.
+ * Not thread safe, meant to be owned by the thread serving the connection.
+ */
+public class OutboundQueue implements AutoCloseable {
+    public static final int DEFAULT_CHUNK_SIZE = 16 * 1024;
+    public static final int DEFAULT_FLUSH_THRESHOLD = 32 * 1024;
+    public static final long DEFAULT_MAX_DELAY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final BufferPool bufferPool;
+    private final int chunkSize;
+    private final int flushThreshold;
+    private final long maxDelayNanos;
+    private final LongAdder writeCalls;
+    private final ArrayDeque<ByteBuffer> chunks = new ArrayDeque<>();
+    private ByteBuffer[] writeBatch = new ByteBuffer[4];
+    private long pending;
+    private long oldestPendingNanos;
+
+    public OutboundQueue(BufferPool bufferPool) {
+        this(bufferPool, DEFAULT_CHUNK_SIZE, DEFAULT_FLUSH_THRESHOLD, DEFAULT_MAX_DELAY_NANOS, new LongAdder());
+    }
+
+    /**
+     * @param writeCalls incremented on every write issued to the channel, may be shared between queues
+     */
+    public OutboundQueue(BufferPool bufferPool, int chunkSize, int flushThreshold, long maxDelayNanos, LongAdder writeCalls) {
+        this.bufferPool = bufferPool;
+        this.chunkSize = chunkSize;
+        this.flushThreshold = flushThreshold;
+        this.maxDelayNanos = maxDelayNanos;
+        this.writeCalls = writeCalls;
+    }
+
+    public void putInt(int value) {
+        var tail = tailWithRoom(Integer.BYTES);
+        tail.putInt(value);
+        pending += Integer.BYTES;
+    }
+
+    /**
+     * Copies the remaining bytes of data, so the caller may reuse it as soon as this returns.
+     */
+    public void add(ByteBuffer data) {
+        while (data.hasRemaining()) {
+            var tail = tailWithRoom(1);
+            var length = Math.min(tail.remaining(), data.remaining());
+            tail.put(tail.position(), data, data.position(), length);
+            tail.position(tail.position() + length);
+            data.position(data.position() + length);
+            pending += length;
+        }
+    }
+
+    /**
+     * Flushes only when the size or time threshold has been reached.
+     *
+     * @return false when the channel could not take everything, so the caller should wait until it is writable
+     */
+    public boolean flushIfDue(GatheringByteChannel channel) throws IOException {
+        if (pending >= flushThreshold || (pending > 0 && System.nanoTime() - oldestPendingNanos >= maxDelayNanos)) {
+            return flush(channel);
+        }
+        return true;
+    }
+
+    /**
+     * Writes as much as the channel accepts without blocking.
+     *
+     * @return true when nothing is left pending
+     */
+    public boolean flush(GatheringByteChannel channel) throws IOException {
+        while (pending > 0) {
+            var count = prepareBatch();
+            var written = channel.write(writeBatch, 0, count);
+            writeCalls.increment();
+            pending -= written;
+            releaseWritten(count);
+            if (written == 0) {
+                break;
+            }
+        }
+        if (pending > 0) {
+            oldestPendingNanos = System.nanoTime();
+            return false;
+        }
+        return true;
+    }
+
+    public boolean hasPending() {
+        return pending > 0;
+    }
+
+    public long pending() {
+        return pending;
+    }
+
+    public long writeCalls() {
+        return writeCalls.sum();
+    }
+
+    @Override
+    public void close() {
+        ByteBuffer chunk;
+        while ((chunk = chunks.pollFirst()) != null) {
+            bufferPool.release(chunk);
+        }
+        pending = 0;
+    }
+
+    private ByteBuffer tailWithRoom(int bytes) {
+        if (pending == 0) {
+            oldestPendingNanos = System.nanoTime();
+        }
+        var tail = chunks.peekLast();
+        if (tail == null || tail.remaining() < bytes) {
+            tail = bufferPool.acquire(chunkSize);
+            chunks.addLast(tail);
+        }
+        return tail;
+    }
+
+    private int prepareBatch() {
+        if (writeBatch.length < chunks.size()) {
+            writeBatch = new ByteBuffer[Integer.highestOneBit(chunks.size()) << 1];
+        }
+        var count = 0;
+        for (var chunk : chunks) {
+            writeBatch[count++] = chunk.flip();
+        }
+        return count;
+    }
+
+    private void releaseWritten(int count) {
+        for (int i = 0; i < count; i++) {
+            var chunk = writeBatch[i];
+            writeBatch[i] = null;
+            if (!chunk.hasRemaining()) {
+                bufferPool.release(chunks.pollFirst());
+            } else if (chunk.position() > 0) {
+                chunk.compact();
+            } else {
+                chunk.position(chunk.limit()).limit(chunk.capacity());
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.mg.nio.handler;
+
+public enum RejectionPolicy {
+    /**
+     * Close the new connection straight away.
+     */
+    REJECT_CLOSE,
+    /**
+     * Handle the new connection on the accepting thread, which stops accepting until it is done.
+     */
+    CALLER_RUNS,
+    /**
+     * Close the connection that has waited longest in the queue and queue the new one instead.
+     */
+    SHED_OLDEST
+}
@@ -0,0 +1,185 @@
+package com.mg.nio.handler;
+
+import com.mg.nio.buffer.BufferPool;
+import com.mg.nio.buffer.SizeClassedBufferPool;
+import com.mg.nio.timeout.IdleTimeoutSettings;
+import com.mg.nio.timeout.IdleTimeouts;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+public class SelectorWorkerGroupHandler implements Handler<SocketChannel>, AutoCloseable {
+    private static final Logger logger = getLogger(SelectorWorkerGroupHandler.class);
+
+    private final List<Worker> workers;
+    private final AtomicInteger next = new AtomicInteger(0);
+
+    public SelectorWorkerGroupHandler(Handler<SelectionKey> decorated) {
+        this(decorated, Runtime.getRuntime().availableProcessors());
+    }
+
+    public SelectorWorkerGroupHandler(Handler<SelectionKey> decorated, int workerCount) {
+        this(decorated, workerCount, new SizeClassedBufferPool(true));
+    }
+
+    public SelectorWorkerGroupHandler(Handler<SelectionKey> decorated, int workerCount, BufferPool bufferPool) {
+        this(decorated, workerCount, bufferPool, IdleTimeoutSettings.DISABLED);
+    }
+
+    public SelectorWorkerGroupHandler(Handler<SelectionKey> decorated, int workerCount, BufferPool bufferPool, IdleTimeoutSettings idleTimeoutSettings) {
+        this(decorated, workerCount, bufferPool, idleTimeoutSettings, socket -> {
+        });
+    }
+
+    /**
+     * @param onClosed called once for every connection handed to this group when it is closed, whether by the
+     *                 decorated handler, an error, the idle timeout or {@link #close()}, on the worker thread
+     */
+    public SelectorWorkerGroupHandler(Handler<SelectionKey> decorated, int workerCount, BufferPool bufferPool, IdleTimeoutSettings idleTimeoutSettings,
+                                      Consumer<SocketChannel> onClosed) {
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("At least one worker is required, got " + workerCount);
+        }
+        var workers = new ArrayList<Worker>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            workers.add(new Worker(decorated, bufferPool, new IdleTimeouts(idleTimeoutSettings), onClosed, "selector-worker-" + i));
+        }
+        this.workers = List.copyOf(workers);
+        this.workers.forEach(Worker::start);
+    }
+
+    @Override
+    public void handle(SocketChannel socket) {
+        var worker = workers.get(Math.floorMod(next.getAndIncrement(), workers.size()));
+        worker.register(socket);
+    }
+
+    public int workerCount() {
+        return workers.size();
+    }
+
+    @Override
+    public void close() {
+        workers.forEach(Worker::stop);
+    }
+
+    private static class Worker {
+        private final AtomicBoolean stopped = new AtomicBoolean(false);
+        private final Queue<SocketChannel> pendingRegistrations = new ConcurrentLinkedQueue<>();
+        private final Handler<SelectionKey> handler;
+        private final BufferPool bufferPool;
+        private final IdleTimeouts idleTimeouts;
+        private final Consumer<SocketChannel> onClosed;
+        private final Selector selector;
+        private final Thread thread;
+
+        private Worker(Handler<SelectionKey> handler, BufferPool bufferPool, IdleTimeouts idleTimeouts, Consumer<SocketChannel> onClosed, String name) {
+            this.handler = handler;
+            this.bufferPool = bufferPool;
+            this.idleTimeouts = idleTimeouts;
+            this.onClosed = onClosed;
+            try {
+                this.selector = Selector.open();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.thread = new Thread(this::run, name);
+        }
+
+        private void start() {
+            thread.start();
+        }
+
+        private void stop() {
+            stopped.set(true);
+            selector.wakeup();
+        }
+
+        private void register(SocketChannel socket) {
+            pendingRegistrations.add(socket);
+            selector.wakeup();
+        }
+
+        private void run() {
+            try (selector) {
+                while (!stopped.get()) {
+                    selector.select(this::dispatch, idleTimeouts.tickMillis());
+                    idleTimeouts.expireIdle();
+                    registerPending();
+                }
+                for (var key : selector.keys()) {
+                    if (key.channel().isOpen()) {
+                        close(key);
+                    }
+                }
+                pendingRegistrations.forEach(this::close);
+            } catch (IOException e) {
+                logger.error("Error while selecting on worker selector", e);
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void registerPending() {
+            SocketChannel socket;
+            while ((socket = pendingRegistrations.poll()) != null) {
+                try {
+                    socket.configureBlocking(false);
+                    var state = new ConnectionState(bufferPool);
+                    var key = socket.register(selector, SelectionKey.OP_READ, state);
+                    state.idleTimeout(idleTimeouts.watch(() -> close(key)));
+                } catch (IOException e) {
+                    logger.error("Error while registering client connection", e);
+                    close(socket);
+                }
+            }
+        }
+
+        private void dispatch(SelectionKey key) {
+            if (!key.isValid()) {
+                return;
+            }
+            try {
+                handler.handle(key);
+                ConnectionState.touch(key);
+            } catch (Exception e) {
+                logger.error("Error while handling client connection", e);
+                close(key);
+                return;
+            }
+            if (!key.channel().isOpen()) {
+                onClosed.accept((SocketChannel) key.channel());
+            }
+        }
+
+        private void close(SelectionKey key) {
+            try {
+                ConnectionState.close(key);
+            } catch (IOException e) {
+                logger.warn("Error while closing client connection", e);
+            }
+            onClosed.accept((SocketChannel) key.channel());
+        }
+
+        private void close(SocketChannel socket) {
+            try {
+                socket.close();
+            } catch (IOException e) {
+                logger.warn("Error while closing client connection", e);
+            }
+            onClosed.accept(socket);
+        }
+    }
+}
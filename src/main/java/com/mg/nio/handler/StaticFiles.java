@@ -0,0 +1,87 @@
+package com.mg.nio.handler;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Files under a root directory. Files up to the mapping threshold are memory-mapped and shared by every
+ * transfer; larger ones are sent with {@link FileChannel#transferTo}, which the kernel does without
+ * copying through the JVM heap. A mapping is reused only while the file keeps the size and modification
+ * time it was mapped with. Files should be replaced by moving a new file in place: truncating a file that
+ * is being sent from its mapping still fails that transfer.
+ */
+public class StaticFiles {
+    public static final long DEFAULT_MAPPED_FILE_THRESHOLD = 256 * 1024;
+    private static final int MAX_MAPPED_FILES = 1024;
+
+    private final Path root;
+    private final long mappedFileThreshold;
+    private final ConcurrentMap<Path, MappedFile> mappedFiles = new ConcurrentHashMap<>();
+
+    private record MappedFile(long size, FileTime lastModified, MappedByteBuffer buffer) {
+
+        private boolean isCurrent(BasicFileAttributes attributes) {
+            return size == attributes.size() && lastModified.equals(attributes.lastModifiedTime());
+        }
+    }
+
+    public StaticFiles(Path root) {
+        this(root, DEFAULT_MAPPED_FILE_THRESHOLD);
+    }
+
+    public StaticFiles(Path root, long mappedFileThreshold) {
+        this.root = root.toAbsolutePath().normalize();
+        this.mappedFileThreshold = mappedFileThreshold;
+    }
+
+    public FileTransfer open(String name) throws IOException {
+        var path = root.resolve(name).normalize();
+        if (!path.startsWith(root)) {
+            throw new NoSuchFileException(name);
+        }
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            throw new NoSuchFileException(name);
+        }
+        if (!attributes.isRegularFile()) {
+            throw new NoSuchFileException(name);
+        }
+        var mapped = mappedFiles.get(path);
+        if (mapped != null && mapped.isCurrent(attributes)) {
+            return FileTransfer.of(mapped.buffer());
+        }
+        if (attributes.size() > mappedFileThreshold || (mapped == null && mappedFiles.size() >= MAX_MAPPED_FILES)) {
+            if (mapped != null) {
+                mappedFiles.remove(path, mapped);
+            }
+            return transferOf(path);
+        }
+        try (var file = FileChannel.open(path, StandardOpenOption.READ)) {
+            var size = file.size();
+            var mapping = new MappedFile(size, attributes.lastModifiedTime(), file.map(FileChannel.MapMode.READ_ONLY, 0, size));
+            mappedFiles.put(path, mapping);
+            return FileTransfer.of(mapping.buffer());
+        }
+    }
+
+    private static FileTransfer transferOf(Path path) throws IOException {
+        var file = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return FileTransfer.of(file);
+        } catch (IOException | RuntimeException e) {
+            file.close();
+            throw e;
+        }
+    }
+}
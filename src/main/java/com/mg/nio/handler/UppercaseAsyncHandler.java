@@ -0,0 +1,134 @@
+package com.mg.nio.handler;
+
+import com.mg.nio.buffer.BufferPool;
+import com.mg.nio.buffer.SizeClassedBufferPool;
+import com.mg.nio.transform.ByteTransformer;
+import com.mg.nio.transform.UppercaseTransformer;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousSocketChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.channels.ShutdownChannelGroupException;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Uppercase pipeline driven by completion handlers: each read completion transforms the buffer and starts a write,
+ * each write completion either continues writing or starts the next read. No thread waits on the connection
+ * in between. The two completion handlers are shared by all connections, which travel as the attachment.
+ */
+public class UppercaseAsyncHandler implements Handler<AsynchronousSocketChannel> {
+    private static final Logger logger = getLogger(UppercaseAsyncHandler.class);
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final ByteTransformer transformer;
+    private final BufferPool bufferPool;
+    private final CompletionHandler<Integer, Connection> onRead = new ReadCompleted();
+    private final CompletionHandler<Integer, Connection> onWrite = new WriteCompleted();
+
+    public UppercaseAsyncHandler() {
+        this(new UppercaseTransformer());
+    }
+
+    public UppercaseAsyncHandler(ByteTransformer transformer) {
+        this(transformer, new SizeClassedBufferPool(true));
+    }
+
+    public UppercaseAsyncHandler(ByteTransformer transformer, BufferPool bufferPool) {
+        this.transformer = transformer;
+        this.bufferPool = bufferPool;
+    }
+
+    @Override
+    public void handle(AsynchronousSocketChannel socket) {
+        var connection = new Connection(socket, bufferPool.acquire(BUFFER_SIZE));
+        try {
+            socket.read(connection.buffer, connection, onRead);
+        } catch (RuntimeException e) {
+            connection.failed(e);
+        }
+    }
+
+    private final class Connection {
+        private final AsynchronousSocketChannel socket;
+        private ByteBuffer buffer;
+
+        private Connection(AsynchronousSocketChannel socket, ByteBuffer buffer) {
+            this.socket = socket;
+            this.buffer = buffer;
+        }
+
+        private void close() {
+            if (buffer != null) {
+                bufferPool.release(buffer);
+                buffer = null;
+            }
+            try {
+                socket.close();
+            } catch (IOException e) {
+                logger.warn("Error while closing client connection", e);
+            }
+        }
+
+        private void failed(Throwable e) {
+            if (isDisconnect(e)) {
+                logger.debug("Client connection closed: {}", e.toString());
+            } else {
+                logger.error("Error while handling client connection", e);
+            }
+            close();
+        }
+
+        /**
+         * Peer resets and closes from our side, including the channel group shutting down, are part of normal
+         * operation and not worth an error.
+         */
+        private static boolean isDisconnect(Throwable e) {
+            return e instanceof ShutdownChannelGroupException || Disconnects.isDisconnect(e);
+        }
+    }
+
+    private final class ReadCompleted implements CompletionHandler<Integer, Connection> {
+        @Override
+        public void completed(Integer read, Connection connection) {
+            if (read == -1) {
+                connection.close();
+                return;
+            }
+            try {
+                connection.buffer.flip();
+                transformer.transform(connection.buffer);
+                connection.socket.write(connection.buffer, connection, onWrite);
+            } catch (RuntimeException e) {
+                connection.failed(e);
+            }
+        }
+
+        @Override
+        public void failed(Throwable e, Connection connection) {
+            connection.failed(e);
+        }
+    }
+
+    private final class WriteCompleted implements CompletionHandler<Integer, Connection> {
+        @Override
+        public void completed(Integer written, Connection connection) {
+            try {
+                if (connection.buffer.hasRemaining()) {
+                    connection.socket.write(connection.buffer, connection, onWrite);
+                } else {
+                    connection.socket.read(connection.buffer.clear(), connection, onRead);
+                }
+            } catch (RuntimeException e) {
+                connection.failed(e);
+            }
+        }
+
+        @Override
+        public void failed(Throwable e, Connection connection) {
+            connection.failed(e);
+        }
+    }
+}
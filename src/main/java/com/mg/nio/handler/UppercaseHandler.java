@@ -1,38 +1,125 @@
 package com.mg.nio.handler;
 
+import com.mg.nio.buffer.BufferPool;
+import com.mg.nio.buffer.SizeClassedBufferPool;
+import com.mg.nio.metrics.ServerMetrics;
+import com.mg.nio.timeout.IdleTimeout;
+import com.mg.nio.timeout.IdleTimeouts;
+import com.mg.nio.transform.ByteTransformer;
+import com.mg.nio.transform.UppercaseTransformer;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.UncheckedIOException;
 import java.net.Socket;
+import java.nio.ByteBuffer;
 
 public class UppercaseHandler implements Handler<Socket> {
+    private static final int BUFFER_SIZE = 8 * 1024;
+    /**
+     * Heap buffers whose arrays stand in for a direct buffer, shared by all handlers so steady load allocates none.
+     */
+    private static final BufferPool SCRATCH_ARRAYS = new SizeClassedBufferPool(false);
+
+    private final ByteTransformer transformer;
+    private final BufferPool bufferPool;
+    private final IdleTimeouts idleTimeouts;
+    private final ServerMetrics metrics;
+
+    public UppercaseHandler() {
+        this(new UppercaseTransformer());
+    }
+
+    public UppercaseHandler(ByteTransformer transformer) {
+        this(transformer, new SizeClassedBufferPool(false));
+    }
+
+    public UppercaseHandler(ByteTransformer transformer, BufferPool bufferPool) {
+        this(transformer, bufferPool, IdleTimeouts.DISABLED);
+    }
+
+    /**
+     * @param idleTimeouts closes the socket of a connection that stays idle, which unblocks this handler
+     */
+    public UppercaseHandler(ByteTransformer transformer, BufferPool bufferPool, IdleTimeouts idleTimeouts) {
+        this(transformer, bufferPool, idleTimeouts, new ServerMetrics());
+    }
+
+    /**
+     * @param metrics counts bytes read and written, a socket cannot be wrapped the way channels are
+     */
+    public UppercaseHandler(ByteTransformer transformer, BufferPool bufferPool, IdleTimeouts idleTimeouts, ServerMetrics metrics) {
+        this.transformer = transformer;
+        this.bufferPool = bufferPool;
+        this.idleTimeouts = idleTimeouts;
+        this.metrics = metrics;
+    }
 
     @Override
     public void handle(Socket socket) {
+        var buffer = bufferPool.acquire(BUFFER_SIZE);
+        var idleTimeout = idleTimeouts.closeWhenIdle(socket);
         try (
                 socket;
                 var in = socket.getInputStream();
                 var out = socket.getOutputStream()
         ) {
-            uppercaseInToOut(in, out);
+            uppercaseInToOut(in, out, buffer, idleTimeout);
         } catch (IOException e) {
             throw new UncheckedIOException(e);
+        } finally {
+            idleTimeout.cancel();
+            bufferPool.release(buffer);
         }
     }
 
-    private void uppercaseInToOut(InputStream in, OutputStream out) throws IOException {
-        var data = in.read();
-        while (data != -1) {
-            out.write(uppercase(data));
-            data = in.read();
+    private void uppercaseInToOut(InputStream in, OutputStream out, ByteBuffer buffer, IdleTimeout idleTimeout) throws IOException {
+        if (!buffer.hasArray()) {
+            uppercaseThroughScratchArray(in, out, buffer, idleTimeout);
+            return;
+        }
+        var data = buffer.array();
+        var offset = buffer.arrayOffset();
+        var read = in.read(data, offset, buffer.capacity());
+        while (read != -1) {
+            idleTimeout.onActivity(true);
+            metrics.recordBytesIn(read);
+            transformer.transform(buffer.clear().limit(read));
+            out.write(data, offset, read);
+            metrics.recordBytesOut(read);
+            idleTimeout.onActivity(false);
+            read = in.read(data, offset, buffer.capacity());
         }
         in.close();
         out.close();
     }
 
-    private int uppercase(int data) {
-        return Character.isLetter(data) ? data ^ ' ' : data;
+    /**
+     * Streams only work on arrays, so a direct buffer from the pool gets a pooled scratch array to copy through.
+     */
+    private void uppercaseThroughScratchArray(InputStream in, OutputStream out, ByteBuffer buffer, IdleTimeout idleTimeout) throws IOException {
+        var scratch = SCRATCH_ARRAYS.acquire(buffer.capacity());
+        try {
+            var data = scratch.array();
+            var offset = scratch.arrayOffset();
+            var read = in.read(data, offset, buffer.capacity());
+            while (read != -1) {
+                idleTimeout.onActivity(true);
+                metrics.recordBytesIn(read);
+                buffer.clear().put(data, offset, read).flip();
+                transformer.transform(buffer);
+                buffer.get(data, offset, read);
+                out.write(data, offset, read);
+                metrics.recordBytesOut(read);
+                idleTimeout.onActivity(false);
+                read = in.read(data, offset, buffer.capacity());
+            }
+            in.close();
+            out.close();
+        } finally {
+            SCRATCH_ARRAYS.release(scratch);
+        }
     }
 
 }
@@ -1,38 +1,88 @@
 package com.mg.nio.handler;
 
+import com.mg.nio.buffer.BufferPool;
+import com.mg.nio.buffer.SizeClassedBufferPool;
+import com.mg.nio.timeout.IdleTimeout;
+import com.mg.nio.timeout.IdleTimeouts;
+import com.mg.nio.transform.ByteTransformer;
+import com.mg.nio.transform.UppercaseTransformer;
+
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
 import java.nio.channels.SocketChannel;
 
 public class UppercaseNewIoHandler implements Handler<SocketChannel> {
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final ByteTransformer transformer;
+    private final BufferPool bufferPool;
+    private final IdleTimeouts idleTimeouts;
+
+    public UppercaseNewIoHandler() {
+        this(new UppercaseTransformer());
+    }
+
+    public UppercaseNewIoHandler(ByteTransformer transformer) {
+        this(transformer, new SizeClassedBufferPool(true));
+    }
+
+    public UppercaseNewIoHandler(ByteTransformer transformer, BufferPool bufferPool) {
+        this(transformer, bufferPool, IdleTimeouts.DISABLED);
+    }
+
+    /**
+     * @param idleTimeouts closes the socket of a connection that stays idle, which unblocks this handler
+     */
+    public UppercaseNewIoHandler(ByteTransformer transformer, BufferPool bufferPool, IdleTimeouts idleTimeouts) {
+        this.transformer = transformer;
+        this.bufferPool = bufferPool;
+        this.idleTimeouts = idleTimeouts;
+    }
 
     @Override
     public void handle(SocketChannel socket) {
-        try (
-                socket;
-                var in = socket.socket().getInputStream();
-                var out = socket.socket().getOutputStream()
-        ) {
-            uppercaseInToOut(in, out);
+        handleChannel(socket);
+    }
+
+    /**
+     * Serves any byte channel, e.g. a {@link com.mg.nio.tls.TlsChannel} over the accepted socket.
+     */
+    public void handleChannel(ByteChannel channel) {
+        try (channel) {
+            serve(channel);
         } catch (IOException e) {
             throw new UncheckedIOException(e);
         }
     }
 
-    private void uppercaseInToOut(InputStream in, OutputStream out) throws IOException {
-        var data = in.read();
-        while (data != -1) {
-            out.write(uppercase(data));
-            data = in.read();
+    /**
+     * Echoes until end of stream without closing the channel, so a caller that stops on an exception, such as
+     * a read timeout, can keep using the connection.
+     */
+    void serve(ByteChannel channel) throws IOException {
+        var buffer = bufferPool.acquire(BUFFER_SIZE);
+        var idleTimeout = idleTimeouts.closeWhenIdle(channel);
+        try {
+            uppercaseInToOut(channel, buffer, idleTimeout);
+        } finally {
+            idleTimeout.cancel();
+            bufferPool.release(buffer);
         }
-        in.close();
-        out.close();
     }
 
-    private int uppercase(int data) {
-        return Character.isLetter(data) ? data ^ ' ' : data;
+    private void uppercaseInToOut(ByteChannel channel, ByteBuffer buffer, IdleTimeout idleTimeout) throws IOException {
+        while (channel.read(buffer) != -1) {
+            idleTimeout.onActivity(true);
+            buffer.flip();
+            transformer.transform(buffer);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+            idleTimeout.onActivity(false);
+        }
     }
 
 }
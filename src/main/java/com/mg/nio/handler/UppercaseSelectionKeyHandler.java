@@ -0,0 +1,73 @@
+package com.mg.nio.handler;
+
+import com.mg.nio.metrics.ServerMetrics;
+import com.mg.nio.transform.ByteTransformer;
+import com.mg.nio.transform.UppercaseTransformer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+public class UppercaseSelectionKeyHandler implements Handler<SelectionKey> {
+    private final ByteTransformer transformer;
+    private final ServerMetrics metrics;
+
+    public UppercaseSelectionKeyHandler() {
+        this(new UppercaseTransformer());
+    }
+
+    public UppercaseSelectionKeyHandler(ByteTransformer transformer) {
+        this(transformer, new ServerMetrics());
+    }
+
+    /**
+     * @param metrics counts bytes read and written, selection keys cannot be wrapped the way channels are
+     */
+    public UppercaseSelectionKeyHandler(ByteTransformer transformer, ServerMetrics metrics) {
+        this.transformer = transformer;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void handle(SelectionKey key) {
+        try {
+            if (key.isReadable()) {
+                read(key);
+            } else if (key.isWritable()) {
+                write(key);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        var socket = (SocketChannel) key.channel();
+        var buffer = ((ConnectionState) key.attachment()).buffer();
+        var read = socket.read(buffer);
+        if (read == -1) {
+            ConnectionState.close(key);
+            return;
+        }
+        if (read > 0) {
+            metrics.recordBytesIn(read);
+            buffer.flip();
+            transformer.transform(buffer);
+            write(key);
+        }
+    }
+
+    private void write(SelectionKey key) throws IOException {
+        var socket = (SocketChannel) key.channel();
+        var buffer = ((ConnectionState) key.attachment()).buffer();
+        metrics.recordBytesOut(socket.write(buffer));
+        if (buffer.hasRemaining()) {
+            key.interestOps(SelectionKey.OP_WRITE);
+        } else {
+            buffer.clear();
+            key.interestOps(SelectionKey.OP_READ);
+        }
+    }
+
+}
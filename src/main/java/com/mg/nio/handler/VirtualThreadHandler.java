@@ -0,0 +1,33 @@
+package com.mg.nio.handler;
+
+import org.slf4j.Logger;
+
+import java.util.concurrent.ThreadFactory;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+public class VirtualThreadHandler<T> implements Handler<T> {
+    private static final Logger logger = getLogger(VirtualThreadHandler.class);
+    private final Handler<T> decorated;
+    private final ThreadFactory threadFactory;
+
+    public VirtualThreadHandler(Handler<T> decorated) {
+        this.decorated = decorated;
+        this.threadFactory = Thread.ofVirtual().name("connection-", 0).factory();
+    }
+
+    @Override
+    public void handle(T socket) {
+        threadFactory.newThread(() -> {
+            try {
+                decorated.handle(socket);
+            } catch (Exception e) {
+                if (Disconnects.isDisconnect(e)) {
+                    logger.debug("Client connection closed: {}", e.toString());
+                } else {
+                    logger.error("Error while handling client connection", e);
+                }
+            }
+        }).start();
+    }
+}
@@ -0,0 +1,230 @@
+package com.mg.nio.load;
+
+import com.mg.nio.metrics.LatencyHistogram;
+import com.mg.nio.transform.UppercaseTransformer;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Drives an uppercase echo server from a single selector thread. Every connection pipelines requests of
+ * the profile's payload size and checks each response against the uppercased payload. With a target rate,
+ * latency is measured from when a request should have been sent rather than when it was, so a stalled
+ * server cannot hide its queueing delay (coordinated omission). At the end of the run the generator stops sending,
+ * waits for the responses still in flight and half-closes every connection before closing it, so the server sees
+ * an orderly end of stream instead of a reset.
+ */
+public class LoadGenerator {
+    private static final Logger logger = getLogger(LoadGenerator.class);
+    private static final long MAX_SELECT_MILLIS = 10;
+    private static final Duration DRAIN_TIMEOUT = Duration.ofSeconds(10);
+
+    private final SocketAddress address;
+    private final LoadProfile profile;
+    private final ByteBuffer payload;
+    private final ByteBuffer expectedResponse;
+
+    public LoadGenerator(SocketAddress address, LoadProfile profile) {
+        this.address = address;
+        this.profile = profile;
+        this.payload = ByteBuffer.allocateDirect(profile.payloadSize());
+        for (int i = 0; i < profile.payloadSize(); i++) {
+            payload.put((byte) ('a' + i % 26));
+        }
+        payload.flip();
+        this.expectedResponse = ByteBuffer.allocateDirect(profile.payloadSize()).put(payload.duplicate()).flip();
+        new UppercaseTransformer().transform(expectedResponse);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 7) {
+            System.err.println("Usage: LoadGenerator <host> <port> <connections> <payloadSize> <pipelineDepth> <requestsPerSecond|0> <durationSeconds>");
+            System.exit(1);
+        }
+        var address = new InetSocketAddress(args[0], Integer.parseInt(args[1]));
+        var profile = new LoadProfile(Integer.parseInt(args[2]), Integer.parseInt(args[3]), Integer.parseInt(args[4]),
+                Long.parseLong(args[5]), Duration.ofSeconds(Long.parseLong(args[6])));
+        System.out.println(new LoadGenerator(address, profile).run());
+    }
+
+    public LoadReport run() throws IOException {
+        var latency = new LatencyHistogram();
+        var connections = new ArrayList<ClientConnection>(profile.connections());
+        try (var selector = Selector.open()) {
+            for (int i = 0; i < profile.connections(); i++) {
+                connections.add(connect(selector));
+            }
+            logger.info("Opened {} connections to {}", connections.size(), address);
+            var interval = profile.intervalPerConnectionNanos();
+            var start = System.nanoTime();
+            var deadline = start + profile.duration().toNanos();
+            for (int i = 0; i < connections.size(); i++) {
+                connections.get(i).nextSendTime = start + (interval * i) / connections.size();
+            }
+            var now = start;
+            while (now < deadline) {
+                var nextSendTime = deadline;
+                for (var connection : connections) {
+                    connection.sendDue(now, interval);
+                    nextSendTime = Math.min(nextSendTime, connection.nextSendTime);
+                }
+                var timeout = Math.max(1, Math.min(MAX_SELECT_MILLIS, (nextSendTime - now) / 1_000_000));
+                selector.select(key -> ((ClientConnection) key.attachment()).onReady(latency), timeout);
+                now = System.nanoTime();
+            }
+            drain(selector, connections, latency);
+            var elapsed = Duration.ofNanos(System.nanoTime() - start);
+            return new LoadReport(
+                    connections.stream().mapToLong(connection -> connection.completedRequests).sum(),
+                    connections.stream().mapToLong(connection -> connection.failedResponses).sum(),
+                    connections.stream().mapToLong(connection -> connection.bytesReceived).sum(),
+                    elapsed,
+                    latency
+            );
+        } finally {
+            close(connections);
+        }
+    }
+
+    /**
+     * Sends nothing new and reads until every request in flight was answered. Requests still unanswered after
+     * {@link #DRAIN_TIMEOUT} count as failed.
+     */
+    private static void drain(Selector selector, List<ClientConnection> connections, LatencyHistogram latency) throws IOException {
+        var deadline = System.nanoTime() + DRAIN_TIMEOUT.toNanos();
+        while (connections.stream().anyMatch(ClientConnection::awaitsResponse) && System.nanoTime() < deadline) {
+            selector.select(key -> ((ClientConnection) key.attachment()).onReady(latency), MAX_SELECT_MILLIS);
+        }
+        for (var connection : connections) {
+            if (connection.awaitsResponse()) {
+                logger.warn("No response to {} requests within {}", connection.inFlight, DRAIN_TIMEOUT);
+                connection.failedResponses += connection.inFlight;
+                connection.inFlight = 0;
+            }
+        }
+    }
+
+    private ClientConnection connect(Selector selector) throws IOException {
+        var channel = SocketChannel.open(address);
+        channel.configureBlocking(false);
+        var connection = new ClientConnection(channel);
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        return connection;
+    }
+
+    private static void close(List<ClientConnection> connections) {
+        for (var connection : connections) {
+            try (var channel = connection.channel) {
+                if (!connection.failed) {
+                    channel.shutdownOutput();
+                }
+            } catch (IOException e) {
+                logger.warn("Error while closing load generator connection", e);
+            }
+        }
+    }
+
+    private class ClientConnection {
+        private final SocketChannel channel;
+        private final ByteBuffer request = payload.duplicate().position(payload.limit());
+        private final ByteBuffer response = ByteBuffer.allocateDirect(profile.payloadSize());
+        private final long[] sendTimes = new long[profile.pipelineDepth()];
+        private SelectionKey key;
+        private int head;
+        private int inFlight;
+        private long nextSendTime;
+        private long completedRequests;
+        private long failedResponses;
+        private long bytesReceived;
+        private boolean failed;
+
+        private ClientConnection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        private boolean awaitsResponse() {
+            return inFlight > 0 && !failed;
+        }
+
+        private void sendDue(long now, long interval) {
+            try {
+                while (!request.hasRemaining() && inFlight < sendTimes.length && nextSendTime <= now) {
+                    sendTimes[(head + inFlight) % sendTimes.length] = interval == 0 ? now : nextSendTime;
+                    inFlight++;
+                    nextSendTime = interval == 0 ? now : nextSendTime + interval;
+                    request.rewind();
+                    write();
+                }
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        private void onReady(LatencyHistogram latency) {
+            try {
+                if (key.isWritable()) {
+                    write();
+                }
+                if (key.isReadable()) {
+                    read(latency);
+                }
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+
+        private void fail(IOException e) {
+            logger.error("Error on load generator connection", e);
+            key.cancel();
+            failed = true;
+            failedResponses += inFlight;
+            inFlight = 0;
+            nextSendTime = Long.MAX_VALUE;
+        }
+
+        private void write() throws IOException {
+            channel.write(request);
+            key.interestOps(request.hasRemaining() ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+
+        private void read(LatencyHistogram latency) throws IOException {
+            int read;
+            while ((read = channel.read(response)) > 0) {
+                bytesReceived += read;
+                if (!response.hasRemaining()) {
+                    complete(latency);
+                }
+            }
+            if (read == -1) {
+                throw new IOException("Server closed the connection with " + inFlight + " requests in flight");
+            }
+        }
+
+        /**
+         * Takes the time only now, after select returned, so the wait for the response is part of the latency.
+         */
+        private void complete(LatencyHistogram latency) {
+            response.flip();
+            if (inFlight > 0 && response.mismatch(expectedResponse) == -1) {
+                completedRequests++;
+                latency.recordValue(System.nanoTime() - sendTimes[head]);
+            } else {
+                failedResponses++;
+            }
+            response.clear();
+            head = (head + 1) % sendTimes.length;
+            inFlight = Math.max(0, inFlight - 1);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.mg.nio.load;
+
+import java.time.Duration;
+
+/**
+ * @param requestsPerSecond total target rate across all connections, 0 sends as fast as responses come back
+ * @param pipelineDepth     requests a connection may have in flight before waiting for responses
+ */
+public record LoadProfile(int connections, int payloadSize, int pipelineDepth, long requestsPerSecond, Duration duration) {
+
+    public LoadProfile {
+        if (connections < 1 || payloadSize < 1 || pipelineDepth < 1 || requestsPerSecond < 0) {
+            throw new IllegalArgumentException("Invalid load profile " + connections + " connections, " + payloadSize
+                    + " byte payload, pipeline depth " + pipelineDepth + ", " + requestsPerSecond + " requests per second");
+        }
+    }
+
+    long intervalPerConnectionNanos() {
+        return requestsPerSecond == 0 ? 0 : Duration.ofSeconds(connections).toNanos() / requestsPerSecond;
+    }
+}
@@ -0,0 +1,29 @@
+package com.mg.nio.load;
+
+import com.mg.nio.metrics.LatencyHistogram;
+
+import java.time.Duration;
+
+public record LoadReport(long completedRequests, long failedResponses, long bytesReceived, Duration elapsed, LatencyHistogram latency) {
+
+    public double requestsPerSecond() {
+        return completedRequests / seconds();
+    }
+
+    public double megabytesPerSecond() {
+        return bytesReceived / seconds() / (1024 * 1024);
+    }
+
+    private double seconds() {
+        return Math.max(elapsed.toNanos(), 1) / 1e9;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "%d requests (%d failed) in %s, %.1f requests/s, %.1f MB/s, latency us: mean %.1f, p50 %d, p99 %d, p99.9 %d, max %d",
+                completedRequests, failedResponses, elapsed, requestsPerSecond(), megabytesPerSecond(),
+                latency.getMean() / 1000, latency.getValueAtPercentile(50) / 1000, latency.getValueAtPercentile(99) / 1000,
+                latency.getValueAtPercentile(99.9) / 1000, latency.getMaxValue() / 1000);
+    }
+}
@@ -0,0 +1,7 @@
+package com.mg.nio.logging;
+
+public enum ConnectionEvent {
+    ACCEPTED,
+    FINISHED,
+    FAILED
+}
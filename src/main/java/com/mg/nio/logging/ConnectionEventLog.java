@@ -0,0 +1,181 @@
+package com.mg.nio.logging;
+
+import org.slf4j.Logger;
+
+import java.net.SocketAddress;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Connection events are claimed into a bounded multi-producer ring buffer with a single CAS and written
+ * out by one background thread, so recording an event never blocks or allocates on the caller's thread.
+ * Events beyond the ring's capacity or the per-second rate limit are dropped and counted instead.
+ */
+public class ConnectionEventLog implements AutoCloseable {
+    private static final Logger logger = getLogger(ConnectionEventLog.class);
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+
+    private final int mask;
+    private final ConnectionEvent[] events;
+    private final SocketAddress[] remoteAddresses;
+    private final long[] timestamps;
+    private final Throwable[] errors;
+    private final AtomicLongArray published;
+    private final AtomicLong producerSequence = new AtomicLong(0);
+    private volatile long consumerSequence = 0;
+
+    private final int sampleEvery;
+    private final AtomicLong connections = new AtomicLong(0);
+    private final int maxEventsPerSecond;
+    private final AtomicLong rateWindow = new AtomicLong(0);
+    private final LongAdder dropped = new LongAdder();
+
+    private final ConnectionEventSink sink;
+    private final AtomicBoolean stopped = new AtomicBoolean(false);
+    private final Thread drainer;
+
+    public ConnectionEventLog(int capacity, int sampleEvery, int maxEventsPerSecond) {
+        this(capacity, sampleEvery, maxEventsPerSecond, ConnectionEventLog::log);
+    }
+
+    public ConnectionEventLog(int capacity, int sampleEvery, int maxEventsPerSecond, ConnectionEventSink sink) {
+        if (Integer.bitCount(capacity) != 1 || sampleEvery < 1 || maxEventsPerSecond < 1) {
+            throw new IllegalArgumentException("Capacity must be a power of two and sampling and rate limit positive, got "
+                    + capacity + ", " + sampleEvery + " and " + maxEventsPerSecond);
+        }
+        this.mask = capacity - 1;
+        this.events = new ConnectionEvent[capacity];
+        this.remoteAddresses = new SocketAddress[capacity];
+        this.timestamps = new long[capacity];
+        this.errors = new Throwable[capacity];
+        this.published = new AtomicLongArray(capacity);
+        this.sampleEvery = sampleEvery;
+        this.maxEventsPerSecond = maxEventsPerSecond;
+        this.sink = sink;
+        this.drainer = new Thread(this::drain, "connection-event-log");
+        this.drainer.setDaemon(true);
+        this.drainer.start();
+    }
+
+    /**
+     * Decides once per connection whether its accepted and finished events are logged.
+     */
+    public boolean sampleConnection() {
+        return connections.getAndIncrement() % sampleEvery == 0;
+    }
+
+    public void record(ConnectionEvent event, SocketAddress remoteAddress, Throwable error) {
+        if (!tryAcquirePermit()) {
+            dropped.increment();
+            return;
+        }
+        long sequence;
+        do {
+            sequence = producerSequence.get();
+            if (sequence - consumerSequence >= events.length) {
+                dropped.increment();
+                return;
+            }
+        } while (!producerSequence.compareAndSet(sequence, sequence + 1));
+        var slot = (int) (sequence & mask);
+        events[slot] = event;
+        remoteAddresses[slot] = remoteAddress;
+        timestamps[slot] = System.currentTimeMillis();
+        errors[slot] = error;
+        published.set(slot, sequence + 1);
+    }
+
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Waits for the drainer to write out the events published so far. If interrupted while waiting, returns early
+     * with the interrupt flag set and the drainer finishing on its own.
+     */
+    @Override
+    public void close() {
+        stopped.set(true);
+        LockSupport.unpark(drainer);
+        try {
+            drainer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The window packs the current second into the high bits and the events counted in it into the low 32 bits.
+     */
+    private boolean tryAcquirePermit() {
+        var second = System.currentTimeMillis() / 1000;
+        while (true) {
+            var window = rateWindow.get();
+            var windowSecond = window >>> 32;
+            var count = windowSecond == second ? (int) window : 0;
+            if (count >= maxEventsPerSecond) {
+                return false;
+            }
+            if (rateWindow.compareAndSet(window, (second << 32) | (count + 1))) {
+                return true;
+            }
+        }
+    }
+
+    private void drain() {
+        var reportedDropped = 0L;
+        while (true) {
+            var drained = drainAvailable();
+            var droppedNow = dropped.sum();
+            if (droppedNow != reportedDropped) {
+                logger.warn("Dropped {} connection events", droppedNow - reportedDropped);
+                reportedDropped = droppedNow;
+            }
+            if (drained == 0) {
+                if (stopped.get()) {
+                    return;
+                }
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    private int drainAvailable() {
+        var drained = 0;
+        var sequence = consumerSequence;
+        while (true) {
+            var slot = (int) (sequence & mask);
+            if (published.get(slot) != sequence + 1) {
+                return drained;
+            }
+            var event = events[slot];
+            var remoteAddress = remoteAddresses[slot];
+            var error = errors[slot];
+            var timestamp = timestamps[slot];
+            remoteAddresses[slot] = null;
+            errors[slot] = null;
+            consumerSequence = ++sequence;
+            drained++;
+            try {
+                sink.onEvent(event, remoteAddress, timestamp, error);
+            } catch (RuntimeException e) {
+                logger.error("Error while writing connection event", e);
+            }
+        }
+    }
+
+    private static void log(ConnectionEvent event, SocketAddress remoteAddress, long timestampMillis, Throwable error) {
+        var time = Instant.ofEpochMilli(timestampMillis);
+        switch (event) {
+            case ACCEPTED -> logger.info("Accepted connection from {} at {}", remoteAddress, time);
+            case FINISHED -> logger.info("Finished handling connection from {} at {}", remoteAddress, time);
+            case FAILED -> logger.error("Error while handling client connection from {} at {}", remoteAddress, time, error);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.mg.nio.logging;
+
+import java.net.SocketAddress;
+
+@FunctionalInterface
+public interface ConnectionEventSink {
+    void onEvent(ConnectionEvent event, SocketAddress remoteAddress, long timestampMillis, Throwable error);
+}
@@ -0,0 +1,44 @@
+package com.mg.nio.metrics;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+
+/**
+ * Counts the bytes actually read from and written to a connection, whatever the handler does in between.
+ */
+public class MeteredChannel implements ByteChannel {
+    private final ByteChannel decorated;
+    private final ServerMetrics metrics;
+
+    public MeteredChannel(ByteChannel decorated, ServerMetrics metrics) {
+        this.decorated = decorated;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        var read = decorated.read(dst);
+        if (read > 0) {
+            metrics.recordBytesIn(read);
+        }
+        return read;
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        var written = decorated.write(src);
+        metrics.recordBytesOut(written);
+        return written;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return decorated.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        decorated.close();
+    }
+}
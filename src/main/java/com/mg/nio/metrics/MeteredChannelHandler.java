@@ -0,0 +1,25 @@
+package com.mg.nio.metrics;
+
+import com.mg.nio.handler.Handler;
+
+import java.nio.channels.ByteChannel;
+
+/**
+ * Counts the bytes read and written by a channel handler, e.g. {@code UppercaseNewIoHandler::handleChannel}, by
+ * giving it a {@link MeteredChannel} over the accepted channel. Placed inside a {@link com.mg.nio.tls.TlsHandler}
+ * it counts plaintext bytes.
+ */
+public class MeteredChannelHandler<T extends ByteChannel> implements Handler<T> {
+    private final Handler<ByteChannel> decorated;
+    private final ServerMetrics metrics;
+
+    public MeteredChannelHandler(Handler<ByteChannel> decorated, ServerMetrics metrics) {
+        this.decorated = decorated;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void handle(T channel) {
+        decorated.handle(new MeteredChannel(channel, metrics));
+    }
+}
@@ -0,0 +1,36 @@
+package com.mg.nio.metrics;
+
+import com.mg.nio.handler.Handler;
+
+import java.io.Closeable;
+
+/**
+ * Counts connections, errors and handler latency. Place it where the connection is actually handled,
+ * i.e. inside an {@link com.mg.nio.handler.ExecutorServiceHandler}, as the logging handlers are.
+ * Every call is counted as one connection, so it only takes connections, not selection keys,
+ * which are handled once per readiness event.
+ */
+public class MetricsHandler<T extends Closeable> implements Handler<T> {
+    private final Handler<T> decorated;
+    private final ServerMetrics metrics;
+
+    public MetricsHandler(Handler<T> decorated, ServerMetrics metrics) {
+        this.decorated = decorated;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void handle(T socket) {
+        metrics.onAccepted();
+        var start = System.nanoTime();
+        try {
+            decorated.handle(socket);
+        } catch (RuntimeException e) {
+            metrics.onHandlerError();
+            throw e;
+        } finally {
+            metrics.recordHandlerLatency(System.nanoTime() - start);
+            metrics.onClosed();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.mg.nio.metrics;
+
+public record MetricsSnapshot(
+        long acceptedConnections,
+        long activeConnections,
+        long closedConnections,
+        long bytesIn,
+        long bytesOut,
+        long handlerErrors,
+        long rejectedConnections,
+        long acceptQueueWaitP99Nanos,
+        long handlerLatencyP50Nanos,
+        long handlerLatencyP99Nanos,
+        long handlerLatencyMaxNanos
+) {
+}
@@ -0,0 +1,147 @@
+package com.mg.nio.metrics;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanRegistrationException;
+import javax.management.MalformedObjectNameException;
+import javax.management.NotCompliantMBeanException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Connection and traffic counters for one server. All recording is done on striped counters and
+ * lock-free histograms, so it is cheap enough to leave on in production.
+ */
+public class ServerMetrics implements ServerMetricsMBean {
+    private final LongAdder acceptedConnections = new LongAdder();
+    private final LongAdder closedConnections = new LongAdder();
+    private final LongAdder bytesIn = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder handlerErrors = new LongAdder();
+    private final LongAdder rejectedConnections = new LongAdder();
+    private final LatencyHistogram acceptQueueWait = new LatencyHistogram();
+    private final LatencyHistogram handlerLatency = new LatencyHistogram();
+
+    public ObjectName register(String serverName) {
+        try {
+            var objectName = new ObjectName("com.mg.nio:type=ServerMetrics,name=" + ObjectName.quote(serverName));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+            return objectName;
+        } catch (MalformedObjectNameException | InstanceAlreadyExistsException | MBeanRegistrationException | NotCompliantMBeanException e) {
+            throw new IllegalStateException("Could not register metrics for " + serverName, e);
+        }
+    }
+
+    public void unregister(ObjectName objectName) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (InstanceNotFoundException | MBeanRegistrationException e) {
+            throw new IllegalStateException("Could not unregister metrics " + objectName, e);
+        }
+    }
+
+    public void onAccepted() {
+        acceptedConnections.increment();
+    }
+
+    public void onClosed() {
+        closedConnections.increment();
+    }
+
+    public void onHandlerError() {
+        handlerErrors.increment();
+    }
+
+    public void onRejected() {
+        rejectedConnections.increment();
+    }
+
+    public void recordBytesIn(long bytes) {
+        bytesIn.add(bytes);
+    }
+
+    public void recordBytesOut(long bytes) {
+        bytesOut.add(bytes);
+    }
+
+    public void recordAcceptQueueWait(long nanos) {
+        acceptQueueWait.recordValue(nanos);
+    }
+
+    public void recordHandlerLatency(long nanos) {
+        handlerLatency.recordValue(nanos);
+    }
+
+    public MetricsSnapshot snapshot() {
+        return new MetricsSnapshot(
+                getAcceptedConnections(),
+                getActiveConnections(),
+                getClosedConnections(),
+                getBytesIn(),
+                getBytesOut(),
+                getHandlerErrors(),
+                getRejectedConnections(),
+                acceptQueueWait.getValueAtPercentile(99),
+                handlerLatency.getValueAtPercentile(50),
+                handlerLatency.getValueAtPercentile(99),
+                handlerLatency.getMaxValue()
+        );
+    }
+
+    @Override
+    public long getAcceptedConnections() {
+        return acceptedConnections.sum();
+    }
+
+    @Override
+    public long getActiveConnections() {
+        return acceptedConnections.sum() - closedConnections.sum();
+    }
+
+    @Override
+    public long getClosedConnections() {
+        return closedConnections.sum();
+    }
+
+    @Override
+    public long getBytesIn() {
+        return bytesIn.sum();
+    }
+
+    @Override
+    public long getBytesOut() {
+        return bytesOut.sum();
+    }
+
+    @Override
+    public long getHandlerErrors() {
+        return handlerErrors.sum();
+    }
+
+    @Override
+    public long getRejectedConnections() {
+        return rejectedConnections.sum();
+    }
+
+    @Override
+    public long getAcceptQueueWaitP99Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(acceptQueueWait.getValueAtPercentile(99));
+    }
+
+    @Override
+    public long getHandlerLatencyP50Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(handlerLatency.getValueAtPercentile(50));
+    }
+
+    @Override
+    public long getHandlerLatencyP99Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(handlerLatency.getValueAtPercentile(99));
+    }
+
+    @Override
+    public long getHandlerLatencyMaxMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(handlerLatency.getMaxValue());
+    }
+}
@@ -0,0 +1,25 @@
+package com.mg.nio.metrics;
+
+public interface ServerMetricsMBean {
+    long getAcceptedConnections();
+
+    long getActiveConnections();
+
+    long getClosedConnections();
+
+    long getBytesIn();
+
+    long getBytesOut();
+
+    long getHandlerErrors();
+
+    long getRejectedConnections();
+
+    long getAcceptQueueWaitP99Micros();
+
+    long getHandlerLatencyP50Micros();
+
+    long getHandlerLatencyP99Micros();
+
+    long getHandlerLatencyMaxMicros();
+}
@@ -0,0 +1,114 @@
+package com.mg.nio.timeout;
+
+import java.time.Duration;
+
+/**
+ * Hashed timer wheel with intrusive entries. Scheduling and cancelling link or unlink an existing
+ * {@link Timeout} in a bucket, so both are O(1) and allocate nothing. Expired timeouts are run by the thread
+ * calling {@link #advance(long)}, outside the wheel's lock.
+ */
+public class HashedTimerWheel {
+    private final long tickNanos;
+    private final long startNanos;
+    private final Timeout[] buckets;
+    private final int mask;
+    private long currentTick;
+
+    public abstract static class Timeout {
+        private Timeout previous;
+        private Timeout next;
+        private long deadlineTick;
+        private boolean scheduled;
+
+        /**
+         * Called once the deadline has passed. May schedule this timeout again.
+         */
+        protected abstract void expire(long nowNanos);
+    }
+
+    public HashedTimerWheel(Duration tick, int wheelSize) {
+        if (Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("Wheel size must be a power of two, got " + wheelSize);
+        }
+        this.tickNanos = Math.max(1, tick.toNanos());
+        this.startNanos = System.nanoTime();
+        this.buckets = new Timeout[wheelSize];
+        this.mask = wheelSize - 1;
+    }
+
+    public long tickNanos() {
+        return tickNanos;
+    }
+
+    public synchronized void schedule(Timeout timeout, long deadlineNanos) {
+        if (timeout.scheduled) {
+            unlink(timeout);
+        }
+        var deadlineTick = Math.max(Math.ceilDiv(deadlineNanos - startNanos, tickNanos), currentTick + 1);
+        var bucket = (int) (deadlineTick & mask);
+        timeout.deadlineTick = deadlineTick;
+        timeout.scheduled = true;
+        timeout.previous = null;
+        timeout.next = buckets[bucket];
+        if (buckets[bucket] != null) {
+            buckets[bucket].previous = timeout;
+        }
+        buckets[bucket] = timeout;
+    }
+
+    public synchronized void cancel(Timeout timeout) {
+        if (timeout.scheduled) {
+            unlink(timeout);
+        }
+    }
+
+    /**
+     * Expires every timeout whose deadline tick has passed by nowNanos.
+     *
+     * @return the number of expired timeouts
+     */
+    public int advance(long nowNanos) {
+        Timeout expired = null;
+        synchronized (this) {
+            var targetTick = (nowNanos - startNanos) / tickNanos;
+            var ticks = Math.min(targetTick - currentTick, buckets.length);
+            for (long i = 1; i <= ticks; i++) {
+                var timeout = buckets[(int) ((currentTick + i) & mask)];
+                while (timeout != null) {
+                    var next = timeout.next;
+                    if (timeout.deadlineTick <= targetTick) {
+                        unlink(timeout);
+                        timeout.next = expired;
+                        expired = timeout;
+                    }
+                    timeout = next;
+                }
+            }
+            currentTick = Math.max(currentTick, targetTick);
+        }
+        var count = 0;
+        while (expired != null) {
+            var timeout = expired;
+            expired = timeout.next;
+            timeout.next = null;
+            timeout.expire(nowNanos);
+            count++;
+        }
+        return count;
+    }
+
+    private void unlink(Timeout timeout) {
+        var bucket = (int) (timeout.deadlineTick & mask);
+        if (timeout.previous != null) {
+            timeout.previous.next = timeout.next;
+        } else {
+            buckets[bucket] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.previous = timeout.previous;
+        }
+        timeout.previous = null;
+        timeout.next = null;
+        timeout.scheduled = false;
+    }
+}
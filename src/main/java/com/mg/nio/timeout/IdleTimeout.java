@@ -0,0 +1,75 @@
+package com.mg.nio.timeout;
+
+/**
+ * Idle timer of a single connection. Activity only records a timestamp, the wheel entry is moved when it
+ * expires and finds the connection was active in the meantime, so a busy connection costs one volatile
+ * write per read or write rather than a reschedule.
+ */
+public class IdleTimeout extends HashedTimerWheel.Timeout {
+    public static final IdleTimeout NONE = new IdleTimeout(null, 0, 0, () -> {
+    });
+
+    private final HashedTimerWheel wheel;
+    private final long readTimeoutNanos;
+    private final long writeTimeoutNanos;
+    private final Runnable onIdle;
+    private volatile long lastActivityNanos;
+    private volatile boolean writePending;
+    private volatile boolean cancelled;
+
+    IdleTimeout(HashedTimerWheel wheel, long readTimeoutNanos, long writeTimeoutNanos, Runnable onIdle) {
+        this.wheel = wheel;
+        this.readTimeoutNanos = readTimeoutNanos;
+        this.writeTimeoutNanos = writeTimeoutNanos;
+        this.onIdle = onIdle;
+        this.lastActivityNanos = System.nanoTime();
+    }
+
+    /**
+     * Records progress on the connection.
+     *
+     * @param writePending whether the connection now waits for a write to complete rather than for input
+     */
+    public void onActivity(boolean writePending) {
+        if (wheel == null) {
+            return;
+        }
+        this.lastActivityNanos = System.nanoTime();
+        this.writePending = writePending;
+    }
+
+    public void cancel() {
+        if (wheel == null) {
+            return;
+        }
+        cancelled = true;
+        wheel.cancel(this);
+    }
+
+    void start() {
+        wheel.schedule(this, lastActivityNanos + nextCheckNanos());
+    }
+
+    @Override
+    protected void expire(long nowNanos) {
+        if (cancelled) {
+            return;
+        }
+        var timeout = writePending ? writeTimeoutNanos : readTimeoutNanos;
+        var lastActivity = lastActivityNanos;
+        if (timeout > 0 && nowNanos - lastActivity >= timeout) {
+            cancelled = true;
+            onIdle.run();
+        } else {
+            wheel.schedule(this, (timeout > 0 ? lastActivity : nowNanos) + nextCheckNanos());
+        }
+    }
+
+    private long nextCheckNanos() {
+        var timeout = writePending ? writeTimeoutNanos : readTimeoutNanos;
+        if (timeout > 0) {
+            return timeout;
+        }
+        return Math.max(readTimeoutNanos, writeTimeoutNanos);
+    }
+}
@@ -0,0 +1,15 @@
+package com.mg.nio.timeout;
+
+import java.time.Duration;
+
+/**
+ * @param readTimeout  how long a connection may wait for input, {@link Duration#ZERO} for no limit
+ * @param writeTimeout how long a pending write may make no progress, {@link Duration#ZERO} for no limit
+ */
+public record IdleTimeoutSettings(Duration readTimeout, Duration writeTimeout) {
+    public static final IdleTimeoutSettings DISABLED = new IdleTimeoutSettings(Duration.ZERO, Duration.ZERO);
+
+    public boolean enabled() {
+        return readTimeout.isPositive() || writeTimeout.isPositive();
+    }
+}
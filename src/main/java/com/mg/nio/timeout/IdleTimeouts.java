@@ -0,0 +1,101 @@
+package com.mg.nio.timeout;
+
+import org.slf4j.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Closes connections that stayed idle longer than configured. Either driven by the owning event loop calling
+ * {@link #expireIdle()} at least every {@link #tickMillis()}, or by its own reaper thread for blocking handlers,
+ * which are unblocked by closing their socket.
+ */
+public class IdleTimeouts implements AutoCloseable {
+    private static final Logger logger = getLogger(IdleTimeouts.class);
+    public static final IdleTimeouts DISABLED = new IdleTimeouts(IdleTimeoutSettings.DISABLED);
+    private static final int WHEEL_SIZE = 512;
+    private static final int TICKS_PER_TIMEOUT = 8;
+
+    private final IdleTimeoutSettings settings;
+    private final HashedTimerWheel wheel;
+    private volatile boolean closed;
+
+    public IdleTimeouts(IdleTimeoutSettings settings) {
+        this.settings = settings;
+        this.wheel = settings.enabled() ? new HashedTimerWheel(tick(settings), WHEEL_SIZE) : null;
+    }
+
+    public static IdleTimeouts withReaperThread(IdleTimeoutSettings settings) {
+        var idleTimeouts = new IdleTimeouts(settings);
+        if (idleTimeouts.wheel != null) {
+            Thread.ofPlatform().name("idle-reaper").daemon().start(idleTimeouts::reap);
+        }
+        return idleTimeouts;
+    }
+
+    public IdleTimeout watch(Runnable onIdle) {
+        if (wheel == null) {
+            return IdleTimeout.NONE;
+        }
+        var idleTimeout = new IdleTimeout(wheel, settings.readTimeout().toNanos(), settings.writeTimeout().toNanos(), onIdle);
+        idleTimeout.start();
+        return idleTimeout;
+    }
+
+    public IdleTimeout closeWhenIdle(Closeable connection) {
+        return watch(() -> {
+            logger.debug("Closing idle connection {}", connection);
+            try {
+                connection.close();
+            } catch (IOException e) {
+                logger.warn("Error while closing idle connection", e);
+            }
+        });
+    }
+
+    /**
+     * @return how often {@link #expireIdle()} should be called, 0 when there is nothing to expire
+     */
+    public long tickMillis() {
+        return wheel == null ? 0 : Math.max(1, Duration.ofNanos(wheel.tickNanos()).toMillis());
+    }
+
+    public int expireIdle() {
+        return wheel == null ? 0 : wheel.advance(System.nanoTime());
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    private void reap() {
+        while (!closed) {
+            LockSupport.parkNanos(wheel.tickNanos());
+            try {
+                expireIdle();
+            } catch (RuntimeException e) {
+                logger.error("Error while expiring idle connections", e);
+            }
+        }
+    }
+
+    private static Duration tick(IdleTimeoutSettings settings) {
+        var shortest = settings.readTimeout().isPositive() && settings.writeTimeout().isPositive()
+                ? min(settings.readTimeout(), settings.writeTimeout())
+                : max(settings.readTimeout(), settings.writeTimeout());
+        return max(Duration.ofMillis(1), shortest.dividedBy(TICKS_PER_TIMEOUT));
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    private static Duration max(Duration a, Duration b) {
+        return a.compareTo(b) >= 0 ? a : b;
+    }
+}
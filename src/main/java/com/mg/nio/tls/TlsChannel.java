@@ -0,0 +1,277 @@
+package com.mg.nio.tls;
+
+import com.mg.nio.buffer.BufferPool;
+import org.slf4j.Logger;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.SSLEngineResult;
+import javax.net.ssl.SSLException;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SocketChannel;
+
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * TLS session over a {@link SocketChannel}, driven by an {@link SSLEngine}. Handshake and post-handshake messages
+ * are processed as part of {@link #read(ByteBuffer)} and {@link #write(ByteBuffer)}. Over a blocking channel
+ * it behaves like the channel itself. Over a non-blocking channel, read and write return 0 when the socket
+ * would block, and {@link #hasPendingWrites()} tells the caller to wait for OP_WRITE and call {@link #flush()}.
+ * Network and application buffers come from a pool and go back on close.
+ */
+public class TlsChannel implements ByteChannel {
+    private static final Logger logger = getLogger(TlsChannel.class);
+    public static final String PROTOCOL = "TLSv1.3";
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private final SocketChannel channel;
+    private final SSLEngine engine;
+    private final BufferPool bufferPool;
+    private ByteBuffer netIn;
+    private ByteBuffer netOut;
+    private ByteBuffer appIn;
+    private boolean inboundDone;
+    private boolean closed;
+
+    public TlsChannel(SocketChannel channel, SSLEngine engine, BufferPool bufferPool) throws SSLException {
+        this.channel = channel;
+        this.engine = engine;
+        this.bufferPool = bufferPool;
+        var session = engine.getSession();
+        try {
+            this.netIn = bufferPool.acquire(session.getPacketBufferSize());
+            this.netOut = bufferPool.acquire(session.getPacketBufferSize()).flip();
+            this.appIn = bufferPool.acquire(session.getApplicationBufferSize()).flip();
+            engine.beginHandshake();
+        } catch (SSLException | RuntimeException e) {
+            releaseBuffers();
+            throw e;
+        }
+    }
+
+    /**
+     * Server side engine limited to TLS 1.3, which has no renegotiation.
+     */
+    public static SSLEngine serverEngine(SSLContext context) {
+        var engine = context.createSSLEngine();
+        engine.setUseClientMode(false);
+        engine.setEnabledProtocols(new String[]{PROTOCOL});
+        return engine;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        ensureOpen();
+        while (true) {
+            if (appIn.hasRemaining()) {
+                return transfer(appIn, dst);
+            }
+            if (inboundDone) {
+                return -1;
+            }
+            if (!handshake()) {
+                return 0;
+            }
+            var result = unwrap();
+            switch (result.getStatus()) {
+                case BUFFER_UNDERFLOW -> {
+                    var read = channel.read(netIn);
+                    if (read == -1) {
+                        closeInbound();
+                        return -1;
+                    }
+                    if (read == 0) {
+                        return 0;
+                    }
+                }
+                case CLOSED -> inboundDone = true;
+                case BUFFER_OVERFLOW -> throw new SSLException("Application buffer too small for a TLS record");
+                case OK -> {
+                }
+            }
+        }
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+        ensureOpen();
+        if (!handshake() || !flush()) {
+            return 0;
+        }
+        var consumed = 0;
+        while (src.hasRemaining()) {
+            var result = wrap(src);
+            if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+                throw new ClosedChannelException();
+            }
+            consumed += result.bytesConsumed();
+            if (!flush()) {
+                break;
+            }
+        }
+        return consumed;
+    }
+
+    /**
+     * Writes encrypted bytes left over by a previous call.
+     *
+     * @return true when nothing is pending any more
+     */
+    public boolean flush() throws IOException {
+        while (netOut.hasRemaining()) {
+            if (channel.write(netOut) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean hasPendingWrites() {
+        return netOut.hasRemaining();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !closed && channel.isOpen();
+    }
+
+    /**
+     * Sends close_notify on a best effort basis, closes the socket and returns the buffers to the pool.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            engine.closeOutbound();
+            if (channel.isOpen() && flush()) {
+                wrap(EMPTY);
+                flush();
+            }
+        } catch (IOException e) {
+            logger.debug("Could not send close_notify", e);
+        } finally {
+            channel.close();
+            releaseBuffers();
+        }
+    }
+
+    private void releaseBuffers() {
+        if (netIn != null) {
+            bufferPool.release(netIn);
+            netIn = null;
+        }
+        if (netOut != null) {
+            bufferPool.release(netOut);
+            netOut = null;
+        }
+        if (appIn != null) {
+            bufferPool.release(appIn);
+            appIn = null;
+        }
+    }
+
+    /**
+     * Progresses the handshake, or a post-handshake exchange, as far as the socket allows.
+     *
+     * @return false when waiting for the socket
+     */
+    private boolean handshake() throws IOException {
+        while (true) {
+            switch (engine.getHandshakeStatus()) {
+                case NOT_HANDSHAKING, FINISHED -> {
+                    return true;
+                }
+                case NEED_TASK -> {
+                    Runnable task;
+                    while ((task = engine.getDelegatedTask()) != null) {
+                        task.run();
+                    }
+                }
+                case NEED_WRAP -> {
+                    if (!flush()) {
+                        return false;
+                    }
+                    var status = wrap(EMPTY).getStatus();
+                    if (status == SSLEngineResult.Status.CLOSED) {
+                        return true;
+                    }
+                    if (status == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+                        throw new SSLException("Network buffer too small for a TLS handshake record");
+                    }
+                }
+                case NEED_UNWRAP, NEED_UNWRAP_AGAIN -> {
+                    var result = unwrap();
+                    if (result.getStatus() == SSLEngineResult.Status.CLOSED) {
+                        inboundDone = true;
+                        return true;
+                    }
+                    if (result.getStatus() == SSLEngineResult.Status.BUFFER_OVERFLOW) {
+                        throw new SSLException("Application buffer too small for a TLS record");
+                    }
+                    if (result.getStatus() == SSLEngineResult.Status.BUFFER_UNDERFLOW) {
+                        if (!flush()) {
+                            return false;
+                        }
+                        var read = channel.read(netIn);
+                        if (read == -1) {
+                            throw new EOFException("Connection closed during TLS handshake");
+                        }
+                        if (read == 0) {
+                            return false;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private SSLEngineResult unwrap() throws SSLException {
+        netIn.flip();
+        appIn.compact();
+        try {
+            return engine.unwrap(netIn, appIn);
+        } finally {
+            appIn.flip();
+            netIn.compact();
+        }
+    }
+
+    private SSLEngineResult wrap(ByteBuffer src) throws IOException {
+        netOut.compact();
+        try {
+            return engine.wrap(src, netOut);
+        } finally {
+            netOut.flip();
+        }
+    }
+
+    /**
+     * The socket ended without close_notify, so the peer may not have sent everything it meant to. Reported as an
+     * error rather than end of stream, otherwise a truncated message would look complete.
+     */
+    private void closeInbound() throws SSLException {
+        inboundDone = true;
+        engine.closeInbound();
+    }
+
+    private void ensureOpen() throws ClosedChannelException {
+        if (closed) {
+            throw new ClosedChannelException();
+        }
+    }
+
+    private static int transfer(ByteBuffer from, ByteBuffer to) {
+        var length = Math.min(from.remaining(), to.remaining());
+        to.put(to.position(), from, from.position(), length);
+        to.position(to.position() + length);
+        from.position(from.position() + length);
+        return length;
+    }
+}
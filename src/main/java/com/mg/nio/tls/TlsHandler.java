@@ -0,0 +1,40 @@
+package com.mg.nio.tls;
+
+import com.mg.nio.buffer.BufferPool;
+import com.mg.nio.buffer.SizeClassedBufferPool;
+import com.mg.nio.handler.Handler;
+
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.ByteChannel;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Wraps every accepted socket into a {@link TlsChannel} and passes it to a handler of plain byte channels,
+ * for blocking servers.
+ */
+public class TlsHandler implements Handler<SocketChannel> {
+    private final SSLContext sslContext;
+    private final Handler<ByteChannel> decorated;
+    private final BufferPool bufferPool;
+
+    public TlsHandler(SSLContext sslContext, Handler<ByteChannel> decorated) {
+        this(sslContext, decorated, new SizeClassedBufferPool(true));
+    }
+
+    public TlsHandler(SSLContext sslContext, Handler<ByteChannel> decorated, BufferPool bufferPool) {
+        this.sslContext = sslContext;
+        this.decorated = decorated;
+        this.bufferPool = bufferPool;
+    }
+
+    @Override
+    public void handle(SocketChannel socket) {
+        try (var channel = new TlsChannel(socket, TlsChannel.serverEngine(sslContext), bufferPool)) {
+            decorated.handle(channel);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.mg.nio.tls;
+
+import com.mg.nio.buffer.BufferPool;
+import com.mg.nio.buffer.SizeClassedBufferPool;
+import com.mg.nio.handler.ConnectionState;
+import com.mg.nio.handler.Handler;
+import com.mg.nio.transform.ByteTransformer;
+import com.mg.nio.transform.UppercaseTransformer;
+
+import javax.net.ssl.SSLContext;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Selector counterpart of {@link TlsHandler}. The {@link TlsChannel} lives in the connection context.
+ * Readable and writable events are served the same way: finish pending output first, then read and transform
+ * until the session has nothing more to give. The session may hold decrypted bytes the selector does not know
+ * about, so when an event ends early the key waits for OP_WRITE, which fires right away on a healthy socket.
+ */
+public class TlsSelectionKeyHandler implements Handler<SelectionKey> {
+    private static final int MAX_READS_PER_EVENT = 16;
+
+    private final SSLContext sslContext;
+    private final ByteTransformer transformer;
+    private final BufferPool bufferPool;
+
+    public TlsSelectionKeyHandler(SSLContext sslContext) {
+        this(sslContext, new UppercaseTransformer(), new SizeClassedBufferPool(true));
+    }
+
+    public TlsSelectionKeyHandler(SSLContext sslContext, ByteTransformer transformer, BufferPool bufferPool) {
+        this.sslContext = sslContext;
+        this.transformer = transformer;
+        this.bufferPool = bufferPool;
+    }
+
+    @Override
+    public void handle(SelectionKey key) {
+        try {
+            var state = (ConnectionState) key.attachment();
+            var channel = tlsChannel(key, state);
+            var buffer = state.buffer();
+            for (int reads = 0; reads < MAX_READS_PER_EVENT; reads++) {
+                if (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                    if (buffer.hasRemaining() || channel.hasPendingWrites()) {
+                        key.interestOps(SelectionKey.OP_WRITE);
+                        return;
+                    }
+                } else if (!channel.flush()) {
+                    key.interestOps(SelectionKey.OP_WRITE);
+                    return;
+                }
+                buffer.clear();
+                var read = channel.read(buffer);
+                buffer.flip();
+                if (read == -1) {
+                    ConnectionState.close(key);
+                    return;
+                }
+                if (read == 0) {
+                    key.interestOps(channel.hasPendingWrites() ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+                    return;
+                }
+                transformer.transform(buffer);
+            }
+            key.interestOps(SelectionKey.OP_WRITE);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private TlsChannel tlsChannel(SelectionKey key, ConnectionState state) throws IOException {
+        if (state.context() instanceof TlsChannel channel) {
+            return channel;
+        }
+        var channel = new TlsChannel((SocketChannel) key.channel(), TlsChannel.serverEngine(sslContext), bufferPool);
+        state.context(channel);
+        state.buffer().flip();
+        return channel;
+    }
+}
@@ -0,0 +1,11 @@
+package com.mg.nio.transform;
+
+import java.nio.ByteBuffer;
+
+public interface ByteTransformer {
+    /**
+     * Transforms the bytes between the buffer's position and limit in place,
+     * leaving position and limit unchanged.
+     */
+    void transform(ByteBuffer buffer);
+}
@@ -0,0 +1,153 @@
+package com.mg.nio.transform;
+
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers the output of a transformer for payloads up to a size limit. A repeated payload is answered by copying
+ * the cached response into the buffer, which the handler then writes as usual. Payloads are compared in full,
+ * so hash collisions cannot return the wrong response.
+ * <p>
+ * Shared by all connections of a handler rather than kept per connection: {@link ByteTransformer} knows nothing of
+ * connections, and a shared cache also answers a payload first seen on another connection. To keep connections from
+ * queueing on one lock, the cache is split into stripes chosen by the payload hash, which is computed before any lock
+ * is taken. Each stripe has its own lock, an equal share of the byte budget and evicts its least recently used
+ * entries once over that share.
+ * <p>
+ * Keys are the raw chunks handed over by a single read, not application messages, so the hit rate depends on how
+ * TCP segments the stream: the same message split differently, or coalesced with its neighbour, is a miss.
+ * A cached response that does not fit the buffer is also treated as a miss.
+ */
+public class CachingTransformer implements ByteTransformer {
+    private static final int DEFAULT_STRIPES = 16;
+
+    private final ByteTransformer decorated;
+    private final int maxPayloadSize;
+    private final Stripe[] stripes;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public CachingTransformer(ByteTransformer decorated, int maxPayloadSize, long maxCachedBytes) {
+        this(decorated, maxPayloadSize, maxCachedBytes, DEFAULT_STRIPES);
+    }
+
+    /**
+     * @param stripes number of independently locked parts of the cache, rounded up to a power of two; each may hold
+     *                {@code maxCachedBytes / stripes} bytes
+     */
+    public CachingTransformer(ByteTransformer decorated, int maxPayloadSize, long maxCachedBytes, int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("stripes must be positive: " + stripes);
+        }
+        this.decorated = decorated;
+        this.maxPayloadSize = maxPayloadSize;
+        this.stripes = new Stripe[stripes == 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new Stripe(maxCachedBytes / this.stripes.length);
+        }
+    }
+
+    @Override
+    public void transform(ByteBuffer buffer) {
+        var length = buffer.remaining();
+        if (length == 0 || length > maxPayloadSize) {
+            decorated.transform(buffer);
+            return;
+        }
+        var key = new Key(buffer, buffer.hashCode());
+        var stripe = stripes[(key.hash ^ key.hash >>> 16) & stripes.length - 1];
+        var response = stripe.get(key);
+        if (response != null && response.length <= buffer.capacity() - buffer.position()) {
+            hits.increment();
+            buffer.limit(buffer.position() + response.length).put(buffer.position(), response);
+            return;
+        }
+        misses.increment();
+        if (length > stripe.maxBytes) {
+            decorated.transform(buffer);
+            return;
+        }
+        var request = copy(buffer);
+        decorated.transform(buffer);
+        if (request.length + buffer.remaining() <= stripe.maxBytes) {
+            stripe.put(new Key(ByteBuffer.wrap(request).asReadOnlyBuffer(), key.hash), copy(buffer));
+        }
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    public long evictions() {
+        return evictions.sum();
+    }
+
+    public long cachedBytes() {
+        var cachedBytes = 0L;
+        for (var stripe : stripes) {
+            cachedBytes += stripe.cachedBytes();
+        }
+        return cachedBytes;
+    }
+
+    private static byte[] copy(ByteBuffer buffer) {
+        var copy = new byte[buffer.remaining()];
+        buffer.get(buffer.position(), copy);
+        return copy;
+    }
+
+    /**
+     * Payload with its hash taken once, outside the stripe lock. Lookups wrap the caller's buffer, stored keys a copy.
+     */
+    private record Key(ByteBuffer payload, int hash) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && hash == other.hash && payload.equals(other.payload);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private final class Stripe {
+        private final LinkedHashMap<Key, byte[]> responses = new LinkedHashMap<>(16, 0.75f, true);
+        private final long maxBytes;
+        private long cachedBytes;
+
+        private Stripe(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        private synchronized byte[] get(Key key) {
+            return responses.get(key);
+        }
+
+        private synchronized long cachedBytes() {
+            return cachedBytes;
+        }
+
+        private synchronized void put(Key key, byte[] response) {
+            var previous = responses.put(key, response);
+            cachedBytes += key.payload.capacity() + response.length;
+            if (previous != null) {
+                cachedBytes -= key.payload.capacity() + previous.length;
+            }
+            var eldest = responses.entrySet().iterator();
+            while (cachedBytes > maxBytes) {
+                Map.Entry<Key, byte[]> entry = eldest.next();
+                cachedBytes -= entry.getKey().payload.capacity() + entry.getValue().length;
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+}
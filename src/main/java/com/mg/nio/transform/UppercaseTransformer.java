@@ -0,0 +1,45 @@
+package com.mg.nio.transform;
+
+import java.nio.ByteBuffer;
+
+public class UppercaseTransformer implements ByteTransformer {
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final byte[] UPPERCASE = new byte[256];
+
+    static {
+        for (int data = 0; data < UPPERCASE.length; data++) {
+            UPPERCASE[data] = (byte) uppercase(data);
+        }
+    }
+
+    public static ByteTransformer create(boolean vectorized) {
+        if (vectorized && ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            return new VectorUppercaseTransformer();
+        }
+        return new UppercaseTransformer();
+    }
+
+    @Override
+    public void transform(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            var array = buffer.array();
+            var end = buffer.arrayOffset() + buffer.limit();
+            for (int i = buffer.arrayOffset() + buffer.position(); i < end; i++) {
+                array[i] = UPPERCASE[array[i] & 0xFF];
+            }
+        } else {
+            for (int i = buffer.position(); i < buffer.limit(); i++) {
+                buffer.put(i, UPPERCASE[buffer.get(i) & 0xFF]);
+            }
+        }
+    }
+
+    static byte uppercase(byte data) {
+        return UPPERCASE[data & 0xFF];
+    }
+
+    static int uppercase(int data) {
+        return Character.isLetter(data) ? data ^ ' ' : data;
+    }
+
+}
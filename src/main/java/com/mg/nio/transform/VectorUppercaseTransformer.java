@@ -0,0 +1,68 @@
+package com.mg.nio.transform;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Vectorized equivalent of {@link UppercaseTransformer}. Requires {@code --add-modules jdk.incubator.vector}.
+ * Direct buffers are staged through a per-thread array, as the Vector API cannot load from a
+ * {@link ByteBuffer} without the preview Foreign Memory API.
+ */
+public class VectorUppercaseTransformer implements ByteTransformer {
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+    private static final int CHUNK_SIZE = 8 * 1024;
+    private static final byte CASE_BIT = ' ';
+
+    private final ThreadLocal<byte[]> chunk = ThreadLocal.withInitial(() -> new byte[CHUNK_SIZE]);
+
+    @Override
+    public void transform(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            var offset = buffer.arrayOffset();
+            transform(buffer.array(), offset + buffer.position(), offset + buffer.limit());
+            return;
+        }
+        var chunk = this.chunk.get();
+        for (int position = buffer.position(); position < buffer.limit(); position += chunk.length) {
+            var length = Math.min(chunk.length, buffer.limit() - position);
+            buffer.get(position, chunk, 0, length);
+            transform(chunk, 0, length);
+            buffer.put(position, chunk, 0, length);
+        }
+    }
+
+    private static void transform(byte[] data, int from, int to) {
+        var i = from;
+        var vectorEnd = from + SPECIES.loopBound(to - from);
+        for (; i < vectorEnd; i += SPECIES.length()) {
+            var vector = ByteVector.fromArray(SPECIES, data, i);
+            vector.lanewise(VectorOperators.XOR, CASE_BIT, isLetter(vector)).intoArray(data, i);
+        }
+        for (; i < to; i++) {
+            data[i] = UppercaseTransformer.uppercase(data[i]);
+        }
+    }
+
+    /**
+     * Same set as {@link Character#isLetter(int)} for 0-255: ASCII letters, Latin-1 letters
+     * 0xC0-0xFF except 0xD7 and 0xF7, and the singletons 0xAA, 0xB5 and 0xBA.
+     * Folding the case bit in first lets each letter range be checked with a single signed range.
+     */
+    private static VectorMask<Byte> isLetter(ByteVector vector) {
+        var folded = vector.or(CASE_BIT);
+        var ascii = folded.compare(VectorOperators.GE, (byte) 'a')
+                .and(folded.compare(VectorOperators.LE, (byte) 'z'));
+        var latin1 = folded.compare(VectorOperators.GE, (byte) 0xE0)
+                .and(folded.compare(VectorOperators.NE, (byte) 0xF7))
+                .and(vector.compare(VectorOperators.LT, (byte) 0));
+        var singletons = vector.compare(VectorOperators.EQ, (byte) 0xAA)
+                .or(vector.compare(VectorOperators.EQ, (byte) 0xB5))
+                .or(vector.compare(VectorOperators.EQ, (byte) 0xBA));
+        return ascii.or(latin1).or(singletons);
+    }
+
+}
@@ -0,0 +1,237 @@
+package com.mg.nio;
+
+import com.mg.nio.buffer.SizeClassedBufferPool;
+import com.mg.nio.handler.Handler;
+import com.mg.nio.handler.UppercaseAsyncHandler;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.channels.AsynchronousChannelGroup;
+import java.nio.channels.AsynchronousSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.slf4j.LoggerFactory.getLogger;
+
+public class AsyncEchoServerTest {
+
+    private static class Connection {
+        private static final Logger logger = getLogger(Connection.class);
+        private final SocketChannel socket;
+
+        private Connection(SocketChannel socket) {
+            this.socket = socket;
+        }
+
+        private static Connection open(int port) throws IOException {
+            logger.info("Starting connection at port {}...", port);
+            var socket = SocketChannel.open(new InetSocketAddress("localhost", port));
+            logger.info("Started connection to {}", socket.getRemoteAddress());
+            return new Connection(socket);
+        }
+
+        public void send(byte[] data) throws IOException {
+            var out = socket.socket().getOutputStream();
+            out.write(data);
+        }
+
+        public Connection send(int data) throws IOException {
+            var out = socket.socket().getOutputStream();
+            out.write(data);
+            return this;
+        }
+
+        public Connection close() throws IOException {
+            socket.socket().getInputStream().close();
+            return this;
+        }
+
+        public int receive() throws IOException {
+            return socket.socket().getInputStream().read();
+        }
+
+        public byte[] receiveNBytes(int length) throws IOException {
+            return socket.socket().getInputStream().readNBytes(length);
+        }
+
+    }
+
+    @Test
+    public void shouldAccept2Connections() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var allConnectionsLatch = new CountDownLatch(2);
+        var countdownLatchHandler = new CountdownLatchHandler<>(new UppercaseAsyncHandler(), allConnectionsLatch);
+        var countingAcceptedConnectionsHandler = new CountingAcceptedConnectionsHandler<>(countdownLatchHandler);
+        var server = new AsyncEchoServer(port, countingAcceptedConnectionsHandler, serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        // when
+        var first = Connection.open(port);
+        var second = Connection.open(port);
+        // then
+        allConnectionsLatch.await();
+        assertThat(countingAcceptedConnectionsHandler.getAcceptedConnections()).isEqualTo(2);
+
+        first.close();
+        second.close();
+        server.stop();
+    }
+
+    @Test
+    public void shouldEchoNonLetter() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var server = new AsyncEchoServer(port, new UppercaseAsyncHandler(), serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        var connection = Connection.open(port);
+        // when
+        connection.send(1);
+        var data = connection.receive();
+        // then
+        assertThat(data).isEqualTo(1);
+
+        connection.close();
+        server.stop();
+    }
+
+    @Test
+    public void shouldMakeUppercase() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var server = new AsyncEchoServer(port, new UppercaseAsyncHandler(), serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        var connection = Connection.open(port);
+        var messageOut = "hello".getBytes();
+        // when
+        connection.send(messageOut);
+        var messageIn = connection.receiveNBytes(messageOut.length);
+        // then
+        assertThat(new String(messageIn)).isEqualTo("HELLO");
+
+        connection.close();
+        server.stop();
+    }
+
+    @Test
+    public void shouldMakeUppercasePayloadLargerThanBuffer() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var server = new AsyncEchoServer(port, new UppercaseAsyncHandler(), serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        var connection = Connection.open(port);
+        var messageOut = new byte[1024 * 1024];
+        Arrays.fill(messageOut, (byte) 'x');
+        // when
+        var sent = CompletableFuture.runAsync(() -> {
+            try {
+                connection.send(messageOut);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        var messageIn = connection.receiveNBytes(messageOut.length);
+        // then
+        sent.join();
+        var expected = new byte[messageOut.length];
+        Arrays.fill(expected, (byte) 'X');
+        assertThat(Arrays.equals(messageIn, expected)).isTrue();
+
+        connection.close();
+        server.stop();
+    }
+
+    @Test
+    public void shouldServeManyConnectionsFromSmallChannelGroup() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var group = AsynchronousChannelGroup.withFixedThreadPool(2, Executors.defaultThreadFactory());
+        Handler<AsynchronousSocketChannel> handler = new UppercaseAsyncHandler();
+        var server = new AsyncEchoServer(port, handler, group, serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        var connections = new ArrayList<Connection>();
+        for (int i = 0; i < 1000; i++) {
+            connections.add(Connection.open(port));
+        }
+        // when
+        var received = new ArrayList<Integer>();
+        for (var connection : connections) {
+            received.add(connection.send('a').receive());
+        }
+        // then
+        assertThat(received.stream().allMatch(data -> data == 'A')).isTrue();
+
+        for (var connection : connections) {
+            connection.close();
+        }
+        server.stop().get(5, TimeUnit.SECONDS);
+        group.shutdownNow();
+    }
+
+    @Test
+    public void shouldStopAcceptingAndCutOffConnectionsStillOpenAfterDrainTimeout() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var server = new AsyncEchoServer(port, new UppercaseAsyncHandler(), serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        var connection = Connection.open(port);
+        connection.send('a').receive();
+        // when
+        var report = server.stop(Duration.ofMillis(100)).get(5, TimeUnit.SECONDS);
+        // then
+        assertThat(report.cutOffConnections()).isEqualTo(1);
+        assertThat(connection.receive()).isEqualTo(-1);
+        new ServerSocket(port).close();
+    }
+
+    @Test
+    public void shouldCloseConnectionAndReleaseBufferWhenTransformerFails() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var bufferPool = new SizeClassedBufferPool(true);
+        var handler = new UppercaseAsyncHandler(buffer -> {
+            throw new IllegalStateException("Transformer failed");
+        }, bufferPool);
+        var server = new AsyncEchoServer(port, handler, serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        var connection = Connection.open(port);
+        // when
+        var received = connection.send('a').receive();
+        // then
+        assertThat(received).isEqualTo(-1);
+        assertThat(bufferPool.outstanding()).isZero();
+
+        connection.close();
+        server.stop();
+    }
+}
@@ -1,17 +1,32 @@
 package com.mg.nio;
 
+import com.mg.nio.buffer.SizeClassedBufferPool;
 import com.mg.nio.handler.ExecutorServiceHandler;
 import com.mg.nio.handler.LoggingHandler;
 import com.mg.nio.handler.UppercaseHandler;
+import com.mg.nio.handler.Handler;
+import com.mg.nio.handler.VirtualThreadHandler;
+import com.mg.nio.timeout.IdleTimeoutSettings;
+import com.mg.nio.timeout.IdleTimeouts;
+import com.mg.nio.transform.UppercaseTransformer;
 import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.UnixDomainSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 import static org.slf4j.LoggerFactory.getLogger;
 
 public class BlockingEchoServerTest {
@@ -65,7 +80,8 @@ public class BlockingEchoServerTest {
         var latch = new CountDownLatch(1);
 
         var handler = new LoggingHandler(new UppercaseHandler());
-        var acceptedConnectionsHandler = new CountingAcceptedConnectionsHandler<>(handler);
+        var firstConnectionLatch = new CountDownLatch(1);
+        var acceptedConnectionsHandler = new CountingAcceptedConnectionsHandler<>(new CountdownLatchHandler<>(handler, firstConnectionLatch));
         var server = new BlockingEchoServer(port, acceptedConnectionsHandler, latch::countDown);
         server.start();
 
@@ -74,6 +90,7 @@ public class BlockingEchoServerTest {
         Connection.open(port);
         Connection.open(port);
         // then
+        firstConnectionLatch.await();
         assertThat(acceptedConnectionsHandler.getAcceptedConnections()).isEqualTo(1);
 
         server.stop();
@@ -86,10 +103,10 @@ public class BlockingEchoServerTest {
         var port = FreePortFinder.getFreePort();
         var threadPoolExecutor = Executors.newFixedThreadPool(2);
         var serverReadyLatch = new CountDownLatch(1);
-        var countingAcceptedConnectionsHandler = new CountingAcceptedConnectionsHandler<>(new LoggingHandler(new UppercaseHandler()));
         var allConnectionsLatch = new CountDownLatch(2);
-        var countdownLatchHandler = new CountdownLatchHandler<>(countingAcceptedConnectionsHandler, allConnectionsLatch);
-        var multithreadedHandler = new ExecutorServiceHandler<>(countdownLatchHandler, threadPoolExecutor);
+        var countdownLatchHandler = new CountdownLatchHandler<>(new LoggingHandler(new UppercaseHandler()), allConnectionsLatch);
+        var countingAcceptedConnectionsHandler = new CountingAcceptedConnectionsHandler<>(countdownLatchHandler);
+        var multithreadedHandler = new ExecutorServiceHandler<>(countingAcceptedConnectionsHandler, threadPoolExecutor);
         var server = new BlockingEchoServer(port, multithreadedHandler, serverReadyLatch::countDown);
         server.start();
 
@@ -151,4 +168,176 @@ public class BlockingEchoServerTest {
         server.stop();
         singleThreadExecutor.shutdownNow();
     }
+
+    @Test
+    public void shouldMakeUppercaseWithDirectBufferPool() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var handler = new UppercaseHandler(new UppercaseTransformer(), new SizeClassedBufferPool(true));
+        var server = new BlockingEchoServer(port, handler, serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        var connection = Connection.open(port);
+        var messageOut = "hello direct".getBytes();
+        // when
+        connection.send(messageOut);
+        var messageIn = connection.receiveNBytes(messageOut.length);
+        // then
+        assertThat(new String(messageIn)).isEqualTo("HELLO DIRECT");
+
+        connection.close();
+        server.stop();
+    }
+
+    @Test
+    public void shouldHandleEachConnectionOnItsOwnVirtualThread() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var virtualThreadConnections = new AtomicInteger(0);
+        var uppercaseHandler = new LoggingHandler(new UppercaseHandler());
+        Handler<Socket> handler = socket -> {
+            if (Thread.currentThread().isVirtual()) {
+                virtualThreadConnections.incrementAndGet();
+            }
+            uppercaseHandler.handle(socket);
+        };
+        var server = BlockingEchoServer.withVirtualThreadPerConnection(port, handler, serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        var connections = new ArrayList<Connection>();
+        for (int i = 0; i < 1000; i++) {
+            connections.add(Connection.open(port));
+        }
+        // when
+        var received = new ArrayList<Integer>();
+        for (var connection : connections) {
+            received.add(connection.send('a').receive());
+        }
+        // then
+        assertThat(received.stream().allMatch(data -> data == 'A')).isTrue();
+        assertThat(virtualThreadConnections.get()).isEqualTo(1000);
+
+        for (var connection : connections) {
+            connection.close();
+        }
+        server.stop();
+    }
+
+    @Test
+    public void shouldStopAcceptingAndCutOffConnectionsStillOpenAfterDrainTimeout() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var server = BlockingEchoServer.withVirtualThreadPerConnection(port, new UppercaseHandler(), serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        var connection = Connection.open(port);
+        connection.send('a').receive();
+        // when
+        var report = server.stop(Duration.ofMillis(100)).get(5, TimeUnit.SECONDS);
+        // then
+        assertThat(report.cutOffConnections()).isEqualTo(1);
+        assertThat(report.drainedConnections()).isEqualTo(0);
+        assertThat(connection.receive()).isEqualTo(-1);
+        new ServerSocket(port).close();
+    }
+
+    @Test
+    public void shouldDrainConnectionsFinishedBeforeDeadline() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var server = BlockingEchoServer.withVirtualThreadPerConnection(port, new UppercaseHandler(), serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        var connection = Connection.open(port);
+        connection.send('a').receive();
+        // when
+        var stopped = server.stop(Duration.ofSeconds(5));
+        connection.close();
+        var report = stopped.get(5, TimeUnit.SECONDS);
+        // then
+        assertThat(report.drainedConnections()).isEqualTo(1);
+        assertThat(report.cutOffConnections()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldListenOnEveryConfiguredAddress() throws Exception {
+        // given
+        var firstPort = FreePortFinder.getFreePort();
+        var secondPort = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var listenerOptions = new ListenerOptions(1, ListenerOptions.DEFAULT_BACKLOG,
+                List.of(new InetSocketAddress("localhost", firstPort), new InetSocketAddress("localhost", secondPort)));
+        var server = new BlockingEchoServer(listenerOptions, new VirtualThreadHandler<>(new UppercaseHandler()), serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        var first = Connection.open(firstPort);
+        var second = Connection.open(secondPort);
+        // when
+        var receivedOnFirst = first.send('a').receive();
+        var receivedOnSecond = second.send('b').receive();
+        // then
+        assertThat(receivedOnFirst).isEqualTo('A');
+        assertThat(receivedOnSecond).isEqualTo('B');
+
+        first.close();
+        second.close();
+        server.stop();
+    }
+
+    @Test
+    public void shouldRejectUnixDomainSocketAddress() {
+        // given
+        var listenerOptions = ListenerOptions.on(UnixDomainSocketAddress.of("echo.sock"));
+        // when
+        // then
+        assertThatThrownBy(() -> new BlockingEchoServer(listenerOptions, new UppercaseHandler(), () -> {}))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void shouldRejectPortZeroForSeveralAcceptors() {
+        // given
+        var listenerOptions = ListenerOptions.onPort(0);
+        // when
+        // then
+        assertThatThrownBy(() -> listenerOptions.withAcceptors(2)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void shouldCloseIdleConnectionsButKeepActiveOnes() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var idleTimeouts = IdleTimeouts.withReaperThread(new IdleTimeoutSettings(Duration.ofMillis(300), Duration.ofMillis(300)));
+        var handler = new UppercaseHandler(new UppercaseTransformer(), new SizeClassedBufferPool(false), idleTimeouts);
+        var server = BlockingEchoServer.withVirtualThreadPerConnection(port, handler, serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        var idle = Connection.open(port);
+        var active = Connection.open(port);
+        idle.send('a').receive();
+        // when
+        var activeReceived = new ArrayList<Integer>();
+        for (int i = 0; i < 10; i++) {
+            activeReceived.add(active.send('b').receive());
+            Thread.sleep(100);
+        }
+        // then
+        assertThat(idle.receive()).isEqualTo(-1);
+        assertThat(activeReceived.stream().allMatch(data -> data == 'B')).isTrue();
+
+        active.close();
+        server.stop();
+        idleTimeouts.close();
+    }
 }
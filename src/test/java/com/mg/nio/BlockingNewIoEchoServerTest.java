@@ -3,15 +3,33 @@ package com.mg.nio;
 import com.mg.nio.handler.ExecutorServiceHandler;
 import com.mg.nio.handler.LoggingNewIoHandler;
 import com.mg.nio.handler.UppercaseNewIoHandler;
+import com.mg.nio.handler.Handler;
+import com.mg.nio.handler.VirtualThreadHandler;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.slf4j.Logger;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
 import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.slf4j.LoggerFactory.getLogger;
 
@@ -66,7 +84,8 @@ public class BlockingNewIoEchoServerTest {
         var latch = new CountDownLatch(1);
 
         var handler = new LoggingNewIoHandler(new UppercaseNewIoHandler());
-        var acceptedConnectionsHandler = new CountingAcceptedConnectionsHandler<>(handler);
+        var firstConnectionLatch = new CountDownLatch(1);
+        var acceptedConnectionsHandler = new CountingAcceptedConnectionsHandler<>(new CountdownLatchHandler<>(handler, firstConnectionLatch));
         var server = new BlockingNewIoEchoServer(port, acceptedConnectionsHandler, latch::countDown);
         server.start();
 
@@ -75,6 +94,7 @@ public class BlockingNewIoEchoServerTest {
         Connection.open(port);
         Connection.open(port);
         // then
+        firstConnectionLatch.await();
         assertThat(acceptedConnectionsHandler.getAcceptedConnections()).isEqualTo(1);
 
         server.stop();
@@ -87,10 +107,10 @@ public class BlockingNewIoEchoServerTest {
         var port = FreePortFinder.getFreePort();
         var threadPoolExecutor = Executors.newFixedThreadPool(2);
         var serverReadyLatch = new CountDownLatch(1);
-        var countingAcceptedConnectionsHandler = new CountingAcceptedConnectionsHandler<>(new LoggingNewIoHandler(new UppercaseNewIoHandler()));
         var allConnectionsLatch = new CountDownLatch(2);
-        var countdownLatchHandler = new CountdownLatchHandler<>(countingAcceptedConnectionsHandler, allConnectionsLatch);
-        var multithreadedHandler = new ExecutorServiceHandler<>(countdownLatchHandler, threadPoolExecutor);
+        var countdownLatchHandler = new CountdownLatchHandler<>(new LoggingNewIoHandler(new UppercaseNewIoHandler()), allConnectionsLatch);
+        var countingAcceptedConnectionsHandler = new CountingAcceptedConnectionsHandler<>(countdownLatchHandler);
+        var multithreadedHandler = new ExecutorServiceHandler<>(countingAcceptedConnectionsHandler, threadPoolExecutor);
         var server = new BlockingNewIoEchoServer(port, multithreadedHandler, serverReadyLatch::countDown);
         server.start();
 
@@ -152,4 +172,193 @@ public class BlockingNewIoEchoServerTest {
         server.stop();
         singleThreadExecutor.shutdownNow();
     }
+
+    @Test
+    public void shouldMakeUppercasePayloadLargerThanBuffer() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var handler = new LoggingNewIoHandler(new UppercaseNewIoHandler());
+        var server = new BlockingNewIoEchoServer(port, handler, serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        var connection = Connection.open(port);
+        var messageOut = new byte[1024 * 1024];
+        Arrays.fill(messageOut, (byte) 'x');
+        // when
+        var sent = CompletableFuture.runAsync(() -> {
+            try {
+                connection.send(messageOut);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        var messageIn = connection.receiveNBytes(messageOut.length);
+        // then
+        sent.join();
+        var expected = new byte[messageOut.length];
+        Arrays.fill(expected, (byte) 'X');
+        assertThat(Arrays.equals(messageIn, expected)).isTrue();
+
+        connection.close();
+        server.stop();
+    }
+
+    @Test
+    public void shouldHandleEachConnectionOnItsOwnVirtualThread() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var virtualThreadConnections = new AtomicInteger(0);
+        var uppercaseHandler = new UppercaseNewIoHandler();
+        Handler<SocketChannel> handler = socket -> {
+            if (Thread.currentThread().isVirtual()) {
+                virtualThreadConnections.incrementAndGet();
+            }
+            uppercaseHandler.handle(socket);
+        };
+        var server = BlockingNewIoEchoServer.withVirtualThreadPerConnection(port, handler, serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        var connections = new ArrayList<Connection>();
+        for (int i = 0; i < 1000; i++) {
+            connections.add(Connection.open(port));
+        }
+        // when
+        var received = new ArrayList<Integer>();
+        for (var connection : connections) {
+            received.add(connection.send('a').receive());
+        }
+        // then
+        assertThat(received.stream().allMatch(data -> data == 'A')).isTrue();
+        assertThat(virtualThreadConnections.get()).isEqualTo(1000);
+
+        for (var connection : connections) {
+            connection.close();
+        }
+        server.stop();
+    }
+
+    @Test
+    public void shouldStopAcceptingAndCutOffConnectionsStillOpenAfterDrainTimeout() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var server = BlockingNewIoEchoServer.withVirtualThreadPerConnection(port, new UppercaseNewIoHandler(), serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        var connection = Connection.open(port);
+        connection.send('a').receive();
+        // when
+        var report = server.stop(Duration.ofMillis(100)).get(5, TimeUnit.SECONDS);
+        // then
+        assertThat(report.cutOffConnections()).isEqualTo(1);
+        assertThat(report.drainedConnections()).isEqualTo(0);
+        assertThat(connection.receive()).isEqualTo(-1);
+        new ServerSocket(port).close();
+    }
+
+    @Test
+    public void shouldDrainConnectionsFinishedBeforeDeadline() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var server = BlockingNewIoEchoServer.withVirtualThreadPerConnection(port, new UppercaseNewIoHandler(), serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        var connection = Connection.open(port);
+        connection.send('a').receive();
+        // when
+        var stopped = server.stop(Duration.ofSeconds(5));
+        connection.close();
+        var report = stopped.get(5, TimeUnit.SECONDS);
+        // then
+        assertThat(report.drainedConnections()).isEqualTo(1);
+        assertThat(report.cutOffConnections()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldSpreadAcceptsOverListenersSharingPort() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var acceptingThreads = ConcurrentHashMap.<String>newKeySet();
+        var virtualThreadHandler = new VirtualThreadHandler<>(new UppercaseNewIoHandler());
+        Handler<SocketChannel> handler = socket -> {
+            acceptingThreads.add(Thread.currentThread().getName());
+            virtualThreadHandler.handle(socket);
+        };
+        var listenerOptions = ListenerOptions.onPort(port).withAcceptors(4).withBacklog(1024);
+        var server = new BlockingNewIoEchoServer(listenerOptions, handler, serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        // when
+        var received = new ArrayList<Integer>();
+        for (int i = 0; i < 200; i++) {
+            var connection = Connection.open(port);
+            received.add(connection.send('a').receive());
+            connection.close();
+        }
+        // then
+        assertThat(received.stream().allMatch(data -> data == 'A')).isTrue();
+        assertThat(acceptingThreads.size()).isGreaterThan(1);
+
+        server.stop();
+    }
+
+    @Test
+    public void shouldMakeUppercaseOverUnixDomainSocket(@TempDir Path directory) throws Exception {
+        // given
+        var address = UnixDomainSocketAddress.of(directory.resolve("echo.sock"));
+        var serverReadyLatch = new CountDownLatch(1);
+        var server = new BlockingNewIoEchoServer(address, new VirtualThreadHandler<>(new UppercaseNewIoHandler()), serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        var messageIn = ByteBuffer.allocate(5);
+        // when
+        try (var socket = SocketChannel.open(address)) {
+            socket.write(ByteBuffer.wrap("hello".getBytes()));
+            while (messageIn.hasRemaining()) {
+                socket.read(messageIn);
+            }
+        }
+        server.stop().get(5, TimeUnit.SECONDS);
+        // then
+        assertThat(new String(messageIn.array())).isEqualTo("HELLO");
+        assertThat(Files.exists(address.getPath())).isFalse();
+    }
+
+    @Test
+    public void shouldFailStartAndReleaseBoundListenersWhenAnyAddressIsTaken() throws Exception {
+        // given
+        var freePort = FreePortFinder.getFreePort();
+        var takenPort = FreePortFinder.getFreePort();
+        var listenerOptions = new ListenerOptions(1, ListenerOptions.DEFAULT_BACKLOG,
+                List.of(new InetSocketAddress(freePort), new InetSocketAddress(takenPort)));
+        var serverReadyLatch = new CountDownLatch(1);
+        var server = new BlockingNewIoEchoServer(listenerOptions, new VirtualThreadHandler<>(new UppercaseNewIoHandler()), serverReadyLatch::countDown);
+        try (var ignored = new ServerSocket(takenPort)) {
+            // when
+            // then
+            assertThatThrownBy(server::start).isInstanceOf(UncheckedIOException.class);
+        }
+        assertThat(serverReadyLatch.getCount()).isEqualTo(1);
+        new ServerSocket(freePort).close();
+        assertThat(server.stop().get(5, TimeUnit.SECONDS).drainedConnections()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldRejectNegativeBacklog() throws Exception {
+        // given
+        var listenerOptions = ListenerOptions.onPort(FreePortFinder.getFreePort());
+        // when
+        // then
+        assertThatThrownBy(() -> listenerOptions.withBacklog(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
 }
@@ -0,0 +1,142 @@
+package com.mg.nio;
+
+import com.mg.nio.handler.FileServingHandler;
+import com.mg.nio.handler.FileServingSelectionKeyHandler;
+import com.mg.nio.handler.StaticFiles;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class FileServingTest {
+
+    @TempDir
+    private Path root;
+
+    private static byte[] request(int port, String name) throws IOException {
+        try (var socket = SocketChannel.open(new InetSocketAddress("localhost", port))) {
+            socket.write(ByteBuffer.wrap((name + "\n").getBytes()));
+            return socket.socket().getInputStream().readAllBytes();
+        }
+    }
+
+    private byte[] createFile(String name, int size) throws IOException {
+        var content = new byte[size];
+        new Random(size).nextBytes(content);
+        Files.write(root.resolve(name), content);
+        return content;
+    }
+
+    @Test
+    public void shouldServeSmallAndLargeFilesFromBlockingServer() throws Exception {
+        // given
+        var small = createFile("small.bin", 10_000);
+        var large = createFile("large.bin", 5 * 1024 * 1024);
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var handler = new FileServingHandler(new StaticFiles(root));
+        var server = BlockingNewIoEchoServer.withVirtualThreadPerConnection(port, handler, serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        // when
+        var smallReceived = request(port, "small.bin");
+        var smallReceivedAgain = request(port, "small.bin");
+        var largeReceived = request(port, "large.bin");
+        // then
+        assertThat(smallReceived).isEqualTo(small);
+        assertThat(smallReceivedAgain).isEqualTo(small);
+        assertThat(largeReceived).isEqualTo(large);
+
+        server.stop();
+    }
+
+    @Test
+    public void shouldResumePartialTransfersOnSelectorServer() throws Exception {
+        // given
+        var small = createFile("small.bin", 10_000);
+        var large = createFile("large.bin", 5 * 1024 * 1024);
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var handler = new FileServingSelectionKeyHandler(new StaticFiles(root, 1024 * 1024));
+        var server = new SelectorEchoServer(port, handler, serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        // when
+        var largeReceived = request(port, "large.bin");
+        var smallReceived = request(port, "small.bin");
+        // then
+        assertThat(largeReceived).isEqualTo(large);
+        assertThat(smallReceived).isEqualTo(small);
+
+        server.stop();
+    }
+
+    @Test
+    public void shouldServeNewContentOfReplacedMappedFile() throws Exception {
+        // given
+        var original = createFile("page.html", 1_000);
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var handler = new FileServingHandler(new StaticFiles(root));
+        var server = BlockingNewIoEchoServer.withVirtualThreadPerConnection(port, handler, serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        var originalReceived = request(port, "page.html");
+        // when
+        var replacement = createFile("page.html.new", 2_000);
+        Files.move(root.resolve("page.html.new"), root.resolve("page.html"), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        var replacementReceived = request(port, "page.html");
+        // then
+        assertThat(originalReceived).isEqualTo(original);
+        assertThat(replacementReceived).isEqualTo(replacement);
+
+        server.stop();
+    }
+
+    @Test
+    public void shouldNotServeFilesOutsideRoot() throws Exception {
+        // given
+        var secret = root.getParent().resolve("secret-" + root.getFileName());
+        Files.writeString(secret, "secret");
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var handler = new FileServingSelectionKeyHandler(new StaticFiles(root));
+        var server = new SelectorEchoServer(port, handler, serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        // when
+        var received = request(port, "../" + secret.getFileName());
+        // then
+        assertThat(received).isEmpty();
+
+        Files.delete(secret);
+        server.stop();
+    }
+
+    @Test
+    public void shouldCloseNonBlockingSocketRejectedByBlockingHandler() throws Exception {
+        // given
+        var handler = new FileServingHandler(new StaticFiles(root));
+        var socket = SocketChannel.open();
+        socket.configureBlocking(false);
+        // when
+        // then
+        assertThatThrownBy(() -> handler.handle(socket)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(socket.isOpen()).isFalse();
+    }
+}
@@ -0,0 +1,139 @@
+package com.mg.nio;
+
+import com.mg.nio.handler.Handler;
+import com.mg.nio.handler.UppercaseSelectionKeyHandler;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.slf4j.LoggerFactory.getLogger;
+
+public class MultiSelectorEchoServerTest {
+
+    private static class Connection {
+        private static final Logger logger = getLogger(Connection.class);
+        private final SocketChannel socket;
+
+        private Connection(SocketChannel socket) {
+            this.socket = socket;
+        }
+
+        private static Connection open(int port) throws IOException {
+            logger.debug("Starting connection at port {}...", port);
+            var socket = SocketChannel.open(new InetSocketAddress("localhost", port));
+            logger.debug("Started connection to {}", socket.getRemoteAddress());
+            return new Connection(socket);
+        }
+
+        public void send(byte[] data) throws IOException {
+            var out = socket.socket().getOutputStream();
+            out.write(data);
+        }
+
+        public Connection send(int data) throws IOException {
+            var out = socket.socket().getOutputStream();
+            out.write(data);
+            return this;
+        }
+
+        public Connection close() throws IOException {
+            socket.close();
+            return this;
+        }
+
+        public int receive() throws IOException {
+            return socket.socket().getInputStream().read();
+        }
+
+        public byte[] receiveNBytes(int length) throws IOException {
+            return socket.socket().getInputStream().readNBytes(length);
+        }
+
+    }
+
+    private record ThreadRecordingHandler(Handler<SelectionKey> decorated, Set<String> threadNames) implements Handler<SelectionKey> {
+        @Override
+        public void handle(SelectionKey key) {
+            threadNames.add(Thread.currentThread().getName());
+            decorated.handle(key);
+        }
+    }
+
+    @Test
+    public void shouldSpreadConnectionsAcrossWorkers() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var threadNames = ConcurrentHashMap.<String>newKeySet();
+        var handler = new ThreadRecordingHandler(new UppercaseSelectionKeyHandler(), threadNames);
+        var server = new MultiSelectorEchoServer(port, handler, 4, serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        var connections = new ArrayList<Connection>();
+        for (int i = 0; i < 8; i++) {
+            connections.add(Connection.open(port));
+        }
+        // when
+        for (var connection : connections) {
+            assertThat(connection.send('a').receive()).isEqualTo('A');
+        }
+        // then
+        assertThat(threadNames.size()).isEqualTo(4);
+
+        for (var connection : connections) {
+            connection.close();
+        }
+        server.stop();
+    }
+
+    @Test
+    public void shouldEchoNonLetter() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var server = new MultiSelectorEchoServer(port, new UppercaseSelectionKeyHandler(), 2, serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        var connection = Connection.open(port);
+        // when
+        connection.send(1);
+        var data = connection.receive();
+        // then
+        assertThat(data).isEqualTo(1);
+
+        connection.close();
+        server.stop();
+    }
+
+    @Test
+    public void shouldMakeUppercase() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var server = new MultiSelectorEchoServer(port, new UppercaseSelectionKeyHandler(), serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        var connection = Connection.open(port);
+        var messageOut = "hello".getBytes();
+        // when
+        connection.send(messageOut);
+        var messageIn = connection.receiveNBytes(messageOut.length);
+        // then
+        assertThat(new String(messageIn)).isEqualTo("HELLO");
+
+        connection.close();
+        server.stop();
+    }
+}
@@ -0,0 +1,259 @@
+package com.mg.nio;
+
+import com.mg.nio.buffer.SizeClassedBufferPool;
+import com.mg.nio.handler.UppercaseSelectionKeyHandler;
+import com.mg.nio.timeout.IdleTimeoutSettings;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
+import static org.slf4j.LoggerFactory.getLogger;
+
+public class SelectorEchoServerTest {
+
+    private static class Connection {
+        private static final Logger logger = getLogger(Connection.class);
+        private final SocketChannel socket;
+
+        private Connection(SocketChannel socket) {
+            this.socket = socket;
+        }
+
+        private static Connection open(int port) throws IOException {
+            logger.debug("Starting connection at port {}...", port);
+            var socket = SocketChannel.open(new InetSocketAddress("localhost", port));
+            logger.debug("Started connection to {}", socket.getRemoteAddress());
+            return new Connection(socket);
+        }
+
+        public void send(byte[] data) throws IOException {
+            var out = socket.socket().getOutputStream();
+            out.write(data);
+        }
+
+        public Connection send(int data) throws IOException {
+            var out = socket.socket().getOutputStream();
+            out.write(data);
+            return this;
+        }
+
+        public Connection close() throws IOException {
+            socket.close();
+            return this;
+        }
+
+        public int receive() throws IOException {
+            return socket.socket().getInputStream().read();
+        }
+
+        public byte[] receiveNBytes(int length) throws IOException {
+            return socket.socket().getInputStream().readNBytes(length);
+        }
+
+    }
+
+    @Test
+    public void shouldServeManyIdleConnectionsFromSingleThread() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var server = new SelectorEchoServer(port, new UppercaseSelectionKeyHandler(), serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        var connections = new ArrayList<Connection>();
+        for (int i = 0; i < 500; i++) {
+            connections.add(Connection.open(port));
+        }
+        // when
+        var received = new ArrayList<Integer>();
+        for (var connection : connections) {
+            received.add(connection.send('a').receive());
+        }
+        // then
+        assertThat(received.stream().allMatch(data -> data == 'A')).isTrue();
+
+        for (var connection : connections) {
+            connection.close();
+        }
+        server.stop();
+    }
+
+    @Test
+    public void shouldEchoNonLetter() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var server = new SelectorEchoServer(port, new UppercaseSelectionKeyHandler(), serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        var connection = Connection.open(port);
+        // when
+        connection.send(1);
+        var data = connection.receive();
+        // then
+        assertThat(data).isEqualTo(1);
+
+        connection.close();
+        server.stop();
+    }
+
+    @Test
+    public void shouldMakeUppercase() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var server = new SelectorEchoServer(port, new UppercaseSelectionKeyHandler(), serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        var connection = Connection.open(port);
+        var messageOut = "hello".getBytes();
+        // when
+        connection.send(messageOut);
+        var messageIn = connection.receiveNBytes(messageOut.length);
+        // then
+        assertThat(new String(messageIn)).isEqualTo("HELLO");
+
+        connection.close();
+        server.stop();
+    }
+
+    @Test
+    public void shouldMakeUppercasePayloadLargerThanSocketBuffers() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var server = new SelectorEchoServer(port, new UppercaseSelectionKeyHandler(), serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        var connection = Connection.open(port);
+        var messageOut = new byte[1024 * 1024];
+        Arrays.fill(messageOut, (byte) 'x');
+        // when
+        var sent = CompletableFuture.runAsync(() -> {
+            try {
+                connection.send(messageOut);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        var messageIn = connection.receiveNBytes(messageOut.length);
+        // then
+        sent.join();
+        var expected = new byte[messageOut.length];
+        Arrays.fill(expected, (byte) 'X');
+        assertThat(Arrays.equals(messageIn, expected)).isTrue();
+
+        connection.close();
+        server.stop();
+    }
+
+    @Test
+    public void shouldReuseConnectionBuffersUnderSteadyLoad() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var bufferPool = new SizeClassedBufferPool(true);
+        var server = new SelectorEchoServer(port, new UppercaseSelectionKeyHandler(), bufferPool, serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        // when
+        for (int i = 0; i < 200; i++) {
+            var connection = Connection.open(port);
+            assertThat(connection.send('a').receive()).isEqualTo('A');
+            connection.close();
+        }
+        // then
+        var deadline = System.nanoTime() + 5_000_000_000L;
+        while (bufferPool.outstanding() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(bufferPool.outstanding()).isZero();
+        assertThat(bufferPool.allocated()).isLessThan(10);
+
+        server.stop();
+    }
+
+    @Test
+    public void shouldCloseConnectionIdleLongerThanReadTimeout() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var idleTimeoutSettings = new IdleTimeoutSettings(Duration.ofMillis(200), Duration.ZERO);
+        var server = new SelectorEchoServer(port, new UppercaseSelectionKeyHandler(), new SizeClassedBufferPool(true), idleTimeoutSettings, serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        var connection = Connection.open(port);
+        var received = connection.send('a').receive();
+        // when
+        var afterIdle = CompletableFuture.supplyAsync(() -> {
+            try {
+                return connection.receive();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        // then
+        assertThat(received).isEqualTo('A');
+        assertThat(afterIdle.get(5, TimeUnit.SECONDS)).isEqualTo(-1);
+
+        server.stop();
+    }
+
+    @Test
+    public void shouldStopAcceptingAndCutOffConnectionsStillOpenAfterDrainTimeout() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var server = new SelectorEchoServer(port, new UppercaseSelectionKeyHandler(), serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        var connection = Connection.open(port);
+        connection.send('a').receive();
+        // when
+        var report = server.stop(Duration.ofMillis(100)).get(5, TimeUnit.SECONDS);
+        // then
+        assertThat(report.cutOffConnections()).isEqualTo(1);
+        assertThat(report.drainedConnections()).isEqualTo(0);
+        assertThat(connection.receive()).isEqualTo(-1);
+        new ServerSocket(port).close();
+    }
+
+    @Test
+    public void shouldDrainConnectionsFinishedBeforeDeadline() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var server = new SelectorEchoServer(port, new UppercaseSelectionKeyHandler(), serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        var connection = Connection.open(port);
+        connection.send('a').receive();
+        // when
+        var stopped = server.stop(Duration.ofSeconds(5));
+        connection.send('b').receive();
+        connection.close();
+        var report = stopped.get(5, TimeUnit.SECONDS);
+        // then
+        assertThat(report.drainedConnections()).isEqualTo(1);
+        assertThat(report.cutOffConnections()).isEqualTo(0);
+    }
+}
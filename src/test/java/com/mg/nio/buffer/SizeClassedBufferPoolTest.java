@@ -0,0 +1,103 @@
+package com.mg.nio.buffer;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SizeClassedBufferPoolTest {
+
+    @Test
+    public void shouldRoundCapacityUpToSizeClass() {
+        // given
+        var pool = new SizeClassedBufferPool(true);
+        // when
+        var small = pool.acquire(10);
+        var medium = pool.acquire(5000);
+        // then
+        assertThat(small.capacity()).isEqualTo(1024);
+        assertThat(medium.capacity()).isEqualTo(8192);
+        assertThat(medium.isDirect()).isTrue();
+        assertThat(medium.remaining()).isEqualTo(8192);
+    }
+
+    @Test
+    public void shouldReuseReleasedBuffer() {
+        // given
+        var pool = new SizeClassedBufferPool(false);
+        var buffer = pool.acquire(4096);
+        buffer.put((byte) 1);
+        // when
+        pool.release(buffer);
+        var reused = pool.acquire(4096);
+        // then
+        assertThat(reused).isSameAs(buffer);
+        assertThat(reused.position()).isZero();
+        assertThat(pool.allocated()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldShareBuffersBetweenThreadsWhenLocalCacheIsFull() throws Exception {
+        // given
+        var pool = new SizeClassedBufferPool(false);
+        var executor = Executors.newSingleThreadExecutor();
+        var buffers = executor.submit(() -> {
+            var acquired = new ArrayList<ByteBuffer>();
+            for (int i = 0; i < 20; i++) {
+                acquired.add(pool.acquire(1024));
+            }
+            acquired.forEach(pool::release);
+            return acquired.size();
+        });
+        assertThat(buffers.get()).isEqualTo(20);
+        // when
+        for (int i = 0; i < 12; i++) {
+            pool.acquire(1024);
+        }
+        // then
+        assertThat(pool.allocated()).isEqualTo(20);
+
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldNotPoolBuffersAboveLargestSizeClass() {
+        // given
+        var pool = new SizeClassedBufferPool(false, 1024, 4096);
+        var buffer = pool.acquire(10_000);
+        // when
+        pool.release(buffer);
+        pool.acquire(10_000);
+        // then
+        assertThat(buffer.capacity()).isEqualTo(10_000);
+        assertThat(pool.allocated()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldTrackOutstandingBuffers() {
+        // given
+        var pool = new SizeClassedBufferPool(true);
+        var first = pool.acquire(1024);
+        pool.acquire(1024);
+        // when
+        pool.release(first);
+        // then
+        assertThat(pool.outstanding()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldDetectBufferReleasedTwice() {
+        // given
+        var pool = new SizeClassedBufferPool(true);
+        var buffer = pool.acquire(1024);
+        pool.release(buffer);
+        // when, then
+        assertThatThrownBy(() -> pool.release(buffer)).isInstanceOf(AssertionError.class);
+        assertThat(pool.acquire(1024)).isSameAs(buffer);
+        assertThat(pool.acquire(1024)).isNotSameAs(buffer);
+    }
+}
@@ -0,0 +1,156 @@
+package com.mg.nio.buffer;
+
+import com.mg.nio.FreePortFinder;
+import com.mg.nio.SelectorEchoServer;
+import com.mg.nio.handler.UppercaseSelectionKeyHandler;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SlabBufferPoolTest {
+
+    @Test
+    public void shouldCarveManyBuffersFromFewSlabs() {
+        // given
+        var pool = new SlabBufferPool(1024, 512);
+        var buffers = new ArrayList<ByteBuffer>();
+        // when
+        for (int i = 0; i < 100_000; i++) {
+            var buffer = pool.acquire(1024);
+            buffer.putInt(0, i);
+            buffers.add(buffer);
+        }
+        // then
+        assertThat(pool.slabs()).isEqualTo(196);
+        for (int i = 0; i < buffers.size(); i++) {
+            assertThat(buffers.get(i).getInt(0)).isEqualTo(i);
+            assertThat(buffers.get(i).isDirect()).isTrue();
+            assertThat(buffers.get(i).capacity()).isEqualTo(1024);
+        }
+    }
+
+    @Test
+    public void shouldReuseSlotReleasedByClosedConnection() {
+        // given
+        var pool = new SlabBufferPool(4096, 4);
+        var buffer = pool.acquire(100);
+        buffer.put((byte) 1);
+        // when
+        pool.release(buffer);
+        var reused = pool.acquire(4096);
+        // then
+        assertThat(reused).isSameAs(buffer);
+        assertThat(reused.position()).isZero();
+        assertThat(pool.slabs()).isEqualTo(1);
+        assertThat(pool.outstanding()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldReuseSlotReleasedOnAnotherThread() throws Exception {
+        // given
+        var pool = new SlabBufferPool(1024, 1);
+        var buffer = pool.acquire(1024);
+        // when
+        var releasing = Thread.ofPlatform().start(() -> pool.release(buffer));
+        releasing.join();
+        var reused = pool.acquire(1024);
+        // then
+        assertThat(reused).isSameAs(buffer);
+        assertThat(pool.slabs()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotPoolRequestsLargerThanSlot() {
+        // given
+        var pool = new SlabBufferPool(1024, 4);
+        // when
+        var large = pool.acquire(4096);
+        pool.release(large);
+        // then
+        assertThat(large.capacity()).isEqualTo(4096);
+        assertThat(pool.slabs()).isZero();
+        assertThat(pool.outstanding()).isZero();
+    }
+
+    @Test
+    public void shouldDetectBufferReleasedTwice() {
+        // given
+        var pool = new SlabBufferPool(1024, 4);
+        var buffer = pool.acquire(1024);
+        pool.release(buffer);
+        // when
+        // then
+        assertThatThrownBy(() -> pool.release(buffer)).isInstanceOf(AssertionError.class);
+        assertThat(pool.acquire(1024)).isSameAs(buffer);
+        assertThat(pool.acquire(1024)).isNotSameAs(buffer);
+        assertThat(pool.outstanding()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldDetectForeignBufferOfSlotSize() {
+        // given
+        var pool = new SlabBufferPool(1024, 4);
+        var buffer = pool.acquire(1024);
+        // when
+        // then
+        assertThatThrownBy(() -> pool.release(ByteBuffer.allocateDirect(1024))).isInstanceOf(AssertionError.class);
+        assertThat(pool.outstanding()).isEqualTo(1);
+
+        pool.release(buffer);
+    }
+
+    @Test
+    public void shouldRejectEveryAcquireOnceClosed() {
+        // given
+        var pool = new SlabBufferPool(1024, 4);
+        // when
+        pool.close();
+        // then
+        assertThatThrownBy(() -> pool.acquire(1024)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> pool.acquire(4096)).isInstanceOf(IllegalStateException.class);
+        assertThat(pool.outstanding()).isZero();
+    }
+
+    @Test
+    public void shouldReturnEverySlotOnceSelectorServerConnectionsClose() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var pool = new SlabBufferPool(8 * 1024);
+        var server = new SelectorEchoServer(port, new UppercaseSelectionKeyHandler(), pool, serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        var connections = new ArrayList<SocketChannel>();
+        for (int i = 0; i < 100; i++) {
+            connections.add(SocketChannel.open(new InetSocketAddress("localhost", port)));
+        }
+        for (var connection : connections) {
+            connection.write(ByteBuffer.wrap("a".getBytes()));
+            connection.read(ByteBuffer.allocate(1));
+        }
+        var outstandingWhileOpen = pool.outstanding();
+        // when
+        for (var connection : connections) {
+            connection.close();
+        }
+        var deadline = System.currentTimeMillis() + 5000;
+        while (pool.outstanding() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        // then
+        assertThat(outstandingWhileOpen).isEqualTo(100);
+        assertThat(pool.outstanding()).isZero();
+        assertThat(pool.slabs()).isEqualTo(1);
+
+        server.stop();
+        pool.close();
+    }
+}
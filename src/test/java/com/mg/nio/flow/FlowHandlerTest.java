@@ -0,0 +1,160 @@
+package com.mg.nio.flow;
+
+import com.mg.nio.BlockingNewIoEchoServer;
+import com.mg.nio.FreePortFinder;
+import com.mg.nio.buffer.SizeClassedBufferPool;
+import com.mg.nio.transform.UppercaseTransformer;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FlowHandlerTest {
+
+    private static class RecordingSubscriber implements Flow.Subscriber<ByteBuffer> {
+        private final List<ByteBuffer> items = new CopyOnWriteArrayList<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(ByteBuffer item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            completed.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed.countDown();
+        }
+    }
+
+    @Test
+    public void shouldMakeUppercaseThroughProcessorPipeline() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var server = new BlockingNewIoEchoServer(port, new FlowHandler(), serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        var messageOut = new byte[1024 * 1024];
+        Arrays.fill(messageOut, (byte) 'x');
+        var messageIn = ByteBuffer.allocate(messageOut.length);
+        // when
+        try (var socket = SocketChannel.open(new InetSocketAddress("localhost", port))) {
+            var writer = Thread.ofVirtual().start(() -> {
+                try {
+                    socket.write(ByteBuffer.wrap(messageOut));
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            while (messageIn.hasRemaining()) {
+                socket.read(messageIn);
+            }
+            writer.join();
+        }
+        // then
+        var expected = new byte[messageOut.length];
+        Arrays.fill(expected, (byte) 'X');
+        assertThat(messageIn.array()).isEqualTo(expected);
+
+        server.stop();
+    }
+
+    @Test
+    public void shouldReadChannelOnlyAsFarAsSubscriberDemands() throws Exception {
+        // given
+        var pipe = Pipe.open();
+        pipe.sink().configureBlocking(false);
+        var written = 0L;
+        var chunk = ByteBuffer.allocate(1024);
+        while (pipe.sink().write(chunk.clear()) > 0) {
+            written += chunk.position();
+        }
+        var publisher = new ChannelPublisher(pipe.source(), new SizeClassedBufferPool(false), 1024, Thread.ofVirtual().factory());
+        var subscriber = new RecordingSubscriber();
+        publisher.subscribe(subscriber);
+        // when
+        subscriber.subscription.request(1);
+        Thread.sleep(200);
+        var itemsAfterFirstRequest = subscriber.items.size();
+        subscriber.subscription.request(2);
+        Thread.sleep(200);
+        // then
+        assertThat(written).isGreaterThan(3 * 1024);
+        assertThat(itemsAfterFirstRequest).isEqualTo(1);
+        assertThat(subscriber.items).hasSize(3);
+
+        subscriber.subscription.cancel();
+        pipe.sink().close();
+    }
+
+    @Test
+    public void shouldTransformItemsAndPassDemandUpstream() throws Exception {
+        // given
+        var publisher = new SubmissionPublisher<ByteBuffer>();
+        var processor = new TransformProcessor(new UppercaseTransformer());
+        var subscriber = new RecordingSubscriber();
+        processor.subscribe(subscriber);
+        publisher.subscribe(processor);
+        // when
+        subscriber.subscription.request(2);
+        publisher.submit(ByteBuffer.wrap("hello".getBytes()));
+        publisher.submit(ByteBuffer.wrap("world".getBytes()));
+        publisher.close();
+        // then
+        assertThat(subscriber.completed.await(5, TimeUnit.SECONDS)).isTrue();
+        var received = new ArrayList<String>();
+        subscriber.items.forEach(item -> received.add(new String(item.array())));
+        assertThat(received).containsExactly("HELLO", "WORLD");
+    }
+
+    @Test
+    public void shouldCloseConnectionAndReleaseBuffersWhenProcessorFails() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var bufferPool = new SizeClassedBufferPool(true);
+        var failingProcessor = new FlowHandler(() -> new TransformProcessor(buffer -> {
+            throw new IllegalStateException("Transformer failed");
+        }), bufferPool, FlowHandler.DEFAULT_BUFFER_SIZE);
+        var server = new BlockingNewIoEchoServer(port, failingProcessor, serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        var messageIn = ByteBuffer.allocate(1);
+        // when
+        int read;
+        try (var socket = SocketChannel.open(new InetSocketAddress("localhost", port))) {
+            socket.write(ByteBuffer.wrap("hello".getBytes()));
+            read = socket.read(messageIn);
+        }
+        // then
+        assertThat(read).isEqualTo(-1);
+        assertThat(bufferPool.outstanding()).isZero();
+
+        server.stop();
+    }
+}
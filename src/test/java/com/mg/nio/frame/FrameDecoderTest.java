@@ -0,0 +1,64 @@
+package com.mg.nio.frame;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class FrameDecoderTest {
+
+    private static String string(ByteBuffer frame) {
+        var bytes = new byte[frame.remaining()];
+        frame.duplicate().get(bytes);
+        return new String(bytes);
+    }
+
+    @Test
+    public void shouldDecodeSeveralFramesFromOneRead() {
+        // given
+        var buffer = ByteBuffer.allocate(64).putInt(5).put("hello".getBytes()).putInt(0).putInt(3).put("abc".getBytes()).flip();
+        var frames = new ArrayList<String>();
+        // when
+        var decoded = new FrameDecoder(60).decode(buffer, frame -> frames.add(string(frame)));
+        // then
+        assertThat(decoded).isEqualTo(3);
+        assertThat(frames).containsExactly("hello", "", "abc");
+        assertThat(buffer.hasRemaining()).isFalse();
+    }
+
+    @Test
+    public void shouldLeavePartialFrameForNextRead() {
+        // given
+        var buffer = ByteBuffer.allocate(64).putInt(5).put("hello".getBytes()).putInt(5).put("wor".getBytes()).flip();
+        var frames = new ArrayList<String>();
+        var decoder = new FrameDecoder(60);
+        // when
+        decoder.decode(buffer, frame -> frames.add(string(frame)));
+        buffer.compact().put("ld".getBytes()).flip();
+        decoder.decode(buffer, frame -> frames.add(string(frame)));
+        // then
+        assertThat(frames).containsExactly("hello", "world");
+    }
+
+    @Test
+    public void shouldHandOutSlicesOfReadBuffer() {
+        // given
+        var buffer = ByteBuffer.allocate(64).putInt(5).put("hello".getBytes()).flip();
+        // when
+        new FrameDecoder(60).decode(buffer, frame -> frame.put(0, (byte) 'j'));
+        // then
+        assertThat(buffer.get(FrameDecoder.HEADER_LENGTH)).isEqualTo((byte) 'j');
+    }
+
+    @Test
+    public void shouldRejectFrameLongerThanLimit() {
+        // given
+        var buffer = ByteBuffer.allocate(64).putInt(100).flip();
+        // when then
+        assertThatThrownBy(() -> new FrameDecoder(60).decode(buffer, frame -> {
+        })).isInstanceOf(FrameTooLongException.class);
+    }
+}
@@ -0,0 +1,89 @@
+package com.mg.nio.frame;
+
+import com.mg.nio.buffer.SizeClassedBufferPool;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.GatheringByteChannel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FrameEncoderTest {
+
+    /**
+     * Takes at most {@code bytesPerWrite} bytes per write and nothing while it is full, like a non-blocking socket.
+     */
+    private static class SlowChannel implements GatheringByteChannel {
+        private final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        private final int bytesPerWrite;
+        private boolean full;
+
+        private SlowChannel(int bytesPerWrite) {
+            this.bytesPerWrite = bytesPerWrite;
+        }
+
+        @Override
+        public long write(ByteBuffer[] sources, int offset, int length) {
+            if (full) {
+                full = false;
+                return 0;
+            }
+            full = true;
+            var budget = bytesPerWrite;
+            for (int i = offset; i < offset + length && budget > 0; i++) {
+                while (sources[i].hasRemaining() && budget-- > 0) {
+                    written.write(sources[i].get());
+                }
+            }
+            return bytesPerWrite - Math.max(budget, 0);
+        }
+
+        @Override
+        public long write(ByteBuffer[] sources) {
+            return write(sources, 0, sources.length);
+        }
+
+        @Override
+        public int write(ByteBuffer source) {
+            return (int) write(new ByteBuffer[]{source});
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    @Test
+    public void shouldResumeFlushStoppedByFullChannel() throws Exception {
+        // given
+        var pool = new SizeClassedBufferPool(true);
+        var channel = new SlowChannel(5);
+        var flushes = 0;
+        try (var encoder = new FrameEncoder(4, pool)) {
+            encoder.add(ByteBuffer.wrap("first".getBytes()));
+            encoder.add(ByteBuffer.wrap("second".getBytes()));
+            // when
+            while (!encoder.flush(channel)) {
+                flushes++;
+            }
+            encoder.add(ByteBuffer.wrap("third".getBytes()));
+            while (!encoder.flush(channel)) {
+                flushes++;
+            }
+        }
+        // then
+        var expected = ByteBuffer.allocate(28)
+                .putInt(5).put("first".getBytes())
+                .putInt(6).put("second".getBytes())
+                .putInt(5).put("third".getBytes());
+        assertThat(channel.written.toByteArray()).isEqualTo(expected.array());
+        assertThat(flushes).isPositive();
+        assertThat(pool.outstanding()).isZero();
+    }
+}
@@ -0,0 +1,62 @@
+package com.mg.nio.frame;
+
+import com.mg.nio.BlockingNewIoEchoServer;
+import com.mg.nio.FreePortFinder;
+import com.mg.nio.transform.UppercaseTransformer;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FramedHandlerTest {
+
+    @Test
+    public void shouldAnswerEveryPipelinedFrame() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var handler = new FramedHandler(FrameProcessor.of(new UppercaseTransformer()));
+        var server = BlockingNewIoEchoServer.withVirtualThreadPerConnection(port, handler, serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        var requests = ByteBuffer.allocate(200_000);
+        var expected = new ArrayList<String>();
+        for (int i = 0; i < 10_000; i++) {
+            var message = "message-" + i;
+            requests.putInt(message.length()).put(message.getBytes());
+            expected.add(message.toUpperCase());
+        }
+        requests.flip();
+        // when
+        var received = new ArrayList<String>();
+        try (var socket = SocketChannel.open(new InetSocketAddress("localhost", port))) {
+            var writer = Thread.ofVirtual().start(() -> {
+                try {
+                    while (requests.hasRemaining()) {
+                        socket.write(requests);
+                    }
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            var in = new DataInputStream(socket.socket().getInputStream());
+            for (int i = 0; i < expected.size(); i++) {
+                var body = new byte[in.readInt()];
+                in.readFully(body);
+                received.add(new String(body));
+            }
+            writer.join();
+        }
+        // then
+        assertThat(received).isEqualTo(expected);
+
+        server.stop();
+    }
+}
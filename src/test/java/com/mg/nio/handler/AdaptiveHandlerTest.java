@@ -0,0 +1,175 @@
+package com.mg.nio.handler;
+
+import com.mg.nio.BlockingNewIoEchoServer;
+import com.mg.nio.FreePortFinder;
+import com.mg.nio.transform.UppercaseTransformer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AdaptiveHandlerTest {
+
+    private static class Connection implements AutoCloseable {
+        private final SocketChannel socket;
+
+        private Connection(SocketChannel socket) {
+            this.socket = socket;
+        }
+
+        private static Connection open(int port) throws IOException {
+            return new Connection(SocketChannel.open(new InetSocketAddress("localhost", port)));
+        }
+
+        public String sendAndReceive(String message) throws IOException {
+            socket.write(ByteBuffer.wrap(message.getBytes()));
+            var response = ByteBuffer.allocate(message.length());
+            while (response.hasRemaining()) {
+                if (socket.read(response) == -1) {
+                    throw new IOException("Connection closed by server");
+                }
+            }
+            return new String(response.array());
+        }
+
+        public SocketAddress localAddress() throws IOException {
+            return socket.getLocalAddress();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        var deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void shouldServeConnectionsAboveThresholdWithSelectors() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var handler = new AdaptiveHandler(new UppercaseTransformer(), 2, 1, Duration.ofSeconds(10));
+        var server = new BlockingNewIoEchoServer(port, handler, serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        var connections = new ArrayList<Connection>();
+        try {
+            // when
+            for (int i = 0; i < 5; i++) {
+                var connection = Connection.open(port);
+                connections.add(connection);
+                assertThat(connection.sendAndReceive("hello-" + i)).isEqualTo("HELLO-" + i);
+            }
+            // then
+            var modes = handler.connectionModes();
+            assertThat(modes.get(connections.get(0).localAddress())).isEqualTo(ConnectionMode.BLOCKING);
+            assertThat(modes.get(connections.get(1).localAddress())).isEqualTo(ConnectionMode.BLOCKING);
+            assertThat(modes.get(connections.get(4).localAddress())).isEqualTo(ConnectionMode.SELECTOR);
+            assertThat(handler.blockingConnections()).isEqualTo(2);
+            assertThat(handler.selectorConnections()).isEqualTo(3);
+            assertThat(handler.migratedConnections()).isZero();
+        } finally {
+            for (var connection : connections) {
+                connection.close();
+            }
+            server.stop();
+            handler.close();
+        }
+    }
+
+    @Test
+    public void shouldMigrateIdleBlockingConnectionsAboveThreshold() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var handler = new AdaptiveHandler(new UppercaseTransformer(), 2, 1, Duration.ofMillis(20));
+        var server = new BlockingNewIoEchoServer(port, handler, serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        try (var first = Connection.open(port); var second = Connection.open(port)) {
+            assertThat(first.sendAndReceive("first")).isEqualTo("FIRST");
+            assertThat(second.sendAndReceive("second")).isEqualTo("SECOND");
+            // when
+            try (var third = Connection.open(port)) {
+                assertThat(third.sendAndReceive("third")).isEqualTo("THIRD");
+                awaitCondition(() -> handler.migratedConnections() == 2);
+                // then
+                assertThat(handler.blockingConnections()).isZero();
+                assertThat(handler.connectionModes()).containsOnlyKeys(first.localAddress(), second.localAddress(), third.localAddress());
+                assertThat(handler.connectionModes().values()).containsOnly(ConnectionMode.SELECTOR);
+                assertThat(first.sendAndReceive("still served")).isEqualTo("STILL SERVED");
+                assertThat(second.sendAndReceive("after migration")).isEqualTo("AFTER MIGRATION");
+            }
+        } finally {
+            server.stop();
+        }
+        awaitCondition(() -> handler.activeConnections() == 0);
+        assertThat(handler.connectionModes()).isEmpty();
+        handler.close();
+    }
+
+    @Test
+    public void shouldKeepIdleConnectionsBlockingBelowThreshold() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var handler = new AdaptiveHandler(new UppercaseTransformer(), 2, 1, Duration.ofMillis(20));
+        var server = new BlockingNewIoEchoServer(port, handler, serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        try (var connection = Connection.open(port)) {
+            // when
+            Thread.sleep(200);
+            // then
+            assertThat(connection.sendAndReceive("idle")).isEqualTo("IDLE");
+            assertThat(handler.connectionModes().values()).containsOnly(ConnectionMode.BLOCKING);
+            assertThat(handler.migratedConnections()).isZero();
+        } finally {
+            server.stop();
+            handler.close();
+        }
+    }
+
+    @Test
+    public void shouldForgetSelectorConnectionsClosedByWorkerGroup() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var handler = new AdaptiveHandler(new UppercaseTransformer(), 1, 1, Duration.ofSeconds(10));
+        var server = new BlockingNewIoEchoServer(port, handler, serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        try (var blocking = Connection.open(port); var selector = Connection.open(port)) {
+            assertThat(blocking.sendAndReceive("blocking")).isEqualTo("BLOCKING");
+            assertThat(selector.sendAndReceive("selector")).isEqualTo("SELECTOR");
+            assertThat(handler.selectorConnections()).isEqualTo(1);
+            // when
+            handler.close();
+            awaitCondition(() -> handler.selectorConnections() == 0);
+            // then
+            assertThat(handler.selectorConnections()).isZero();
+            assertThat(handler.connectionModes().values()).doesNotContain(ConnectionMode.SELECTOR);
+        } finally {
+            server.stop();
+        }
+    }
+}
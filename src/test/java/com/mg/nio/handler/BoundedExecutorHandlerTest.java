@@ -0,0 +1,147 @@
+package com.mg.nio.handler;
+
+import com.mg.nio.metrics.ServerMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.io.Closeable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BoundedExecutorHandlerTest {
+
+    private static class FakeConnection implements Closeable {
+        private final String name;
+        private volatile boolean closed;
+
+        private FakeConnection(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    private static class BlockingHandler implements Handler<FakeConnection> {
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final CountDownLatch started = new CountDownLatch(1);
+        private final CopyOnWriteArrayList<String> handled = new CopyOnWriteArrayList<>();
+        private final CopyOnWriteArrayList<String> threads = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void handle(FakeConnection socket) {
+            handled.add(socket.name);
+            threads.add(Thread.currentThread().getName());
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Test
+    public void shouldCloseNewConnectionWhenQueueIsFull() throws Exception {
+        // given
+        var handler = new BlockingHandler();
+        var metrics = new ServerMetrics();
+        var boundedHandler = new BoundedExecutorHandler<>(handler, 1, 1, RejectionPolicy.REJECT_CLOSE, metrics, (socket, error) -> {
+        });
+        var first = new FakeConnection("first");
+        var queued = new FakeConnection("queued");
+        var rejected = new FakeConnection("rejected");
+        boundedHandler.handle(first);
+        handler.started.await();
+        // when
+        boundedHandler.handle(queued);
+        boundedHandler.handle(rejected);
+        // then
+        assertThat(rejected.closed).isTrue();
+        assertThat(queued.closed).isFalse();
+        assertThat(metrics.getRejectedConnections()).isEqualTo(1);
+
+        handler.release.countDown();
+        boundedHandler.close();
+    }
+
+    @Test
+    public void shouldRunOnCallerThreadWhenQueueIsFull() throws Exception {
+        // given
+        var handler = new BlockingHandler();
+        var boundedHandler = new BoundedExecutorHandler<>(handler, 1, 1, RejectionPolicy.CALLER_RUNS);
+        boundedHandler.handle(new FakeConnection("first"));
+        handler.started.await();
+        boundedHandler.handle(new FakeConnection("queued"));
+        // when
+        var acceptor = new Thread(() -> boundedHandler.handle(new FakeConnection("caller")), "acceptor");
+        acceptor.start();
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!handler.handled.contains("caller") && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        handler.release.countDown();
+        acceptor.join();
+        // then
+        assertThat(handler.threads.get(handler.handled.indexOf("caller"))).isEqualTo("acceptor");
+
+        boundedHandler.close();
+    }
+
+    @Test
+    public void shouldShedOldestQueuedConnectionWhenQueueIsFull() throws Exception {
+        // given
+        var handler = new BlockingHandler();
+        var metrics = new ServerMetrics();
+        var boundedHandler = new BoundedExecutorHandler<>(handler, 1, 2, RejectionPolicy.SHED_OLDEST, metrics, (socket, error) -> {
+        });
+        boundedHandler.handle(new FakeConnection("first"));
+        handler.started.await();
+        var oldest = new FakeConnection("oldest");
+        var newer = new FakeConnection("newer");
+        boundedHandler.handle(oldest);
+        boundedHandler.handle(newer);
+        // when
+        boundedHandler.handle(new FakeConnection("newest"));
+        handler.release.countDown();
+        // then
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (handler.handled.size() < 3 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(oldest.closed).isTrue();
+        assertThat(handler.handled).containsExactly("first", "newer", "newest");
+        assertThat(metrics.getRejectedConnections()).isEqualTo(1);
+        assertThat(metrics.snapshot().acceptQueueWaitP99Nanos()).isPositive();
+
+        boundedHandler.close();
+    }
+
+    @Test
+    public void shouldPassHandlerFailuresToCallback() throws Exception {
+        // given
+        var failures = new CopyOnWriteArrayList<Throwable>();
+        var failed = new CountDownLatch(1);
+        Handler<FakeConnection> failingHandler = socket -> {
+            throw new IllegalStateException("handler failure");
+        };
+        var metrics = new ServerMetrics();
+        var boundedHandler = new BoundedExecutorHandler<>(failingHandler, 1, 1, RejectionPolicy.REJECT_CLOSE, metrics, (socket, error) -> {
+            failures.add(error);
+            failed.countDown();
+        });
+        // when
+        boundedHandler.handle(new FakeConnection("failing"));
+        failed.await();
+        // then
+        assertThat(failures).hasSize(1);
+        assertThat(failures.get(0)).hasMessage("handler failure");
+        assertThat(metrics.getHandlerErrors()).isEqualTo(1);
+
+        boundedHandler.close();
+    }
+}
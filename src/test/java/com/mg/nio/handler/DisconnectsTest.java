@@ -0,0 +1,41 @@
+package com.mg.nio.handler;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.SocketException;
+import java.nio.channels.ClosedChannelException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DisconnectsTest {
+
+    @Test
+    public void shouldTreatWrappedPeerResetAsDisconnect() {
+        // given
+        var e = new UncheckedIOException(new SocketException("Connection reset"));
+        // when
+        var disconnect = Disconnects.isDisconnect(e);
+        // then
+        assertThat(disconnect).isTrue();
+    }
+
+    @Test
+    public void shouldTreatBrokenPipeAndClosedChannelAsDisconnect() {
+        // when
+        var brokenPipe = Disconnects.isDisconnect(new IOException("Broken pipe"));
+        var closed = Disconnects.isDisconnect(new ClosedChannelException());
+        // then
+        assertThat(brokenPipe).isTrue();
+        assertThat(closed).isTrue();
+    }
+
+    @Test
+    public void shouldNotTreatOtherFailuresAsDisconnect() {
+        // when
+        var disconnect = Disconnects.isDisconnect(new UncheckedIOException(new IOException("No space left on device")));
+        // then
+        assertThat(disconnect).isFalse();
+    }
+}
@@ -0,0 +1,36 @@
+package com.mg.nio.handler;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class FileTransferTest {
+
+    @TempDir
+    private Path root;
+
+    @Test
+    public void shouldFailTransferOfFileTruncatedWhileSending() throws Exception {
+        // given
+        var path = root.resolve("shrinking.bin");
+        Files.write(path, new byte[1024 * 1024]);
+        var sink = Channels.newChannel(OutputStream.nullOutputStream());
+        try (var transfer = FileTransfer.of(FileChannel.open(path, StandardOpenOption.READ))) {
+            // when
+            try (var writer = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                writer.truncate(10);
+            }
+            // then
+            assertThatThrownBy(() -> transfer.transferTo(sink)).isInstanceOf(IOException.class);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.mg.nio.handler;
+
+import com.mg.nio.buffer.SizeClassedBufferPool;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OutboundQueueTest {
+
+    @Test
+    public void shouldCoalesceSmallWritesIntoOne() throws Exception {
+        // given
+        var pipe = Pipe.open();
+        var queue = new OutboundQueue(new SizeClassedBufferPool(false));
+        // when
+        for (int i = 0; i < 100; i++) {
+            queue.putInt(i);
+            queue.add(ByteBuffer.wrap("abc".getBytes()));
+        }
+        var flushed = queue.flush(pipe.sink());
+        // then
+        assertThat(flushed).isTrue();
+        assertThat(queue.writeCalls()).isEqualTo(1);
+        var received = ByteBuffer.allocate(700);
+        while (received.hasRemaining()) {
+            pipe.source().read(received);
+        }
+        assertThat(received.getInt(99 * 7)).isEqualTo(99);
+        assertThat(received.get(99 * 7 + 4)).isEqualTo((byte) 'a');
+    }
+
+    @Test
+    public void shouldNotFlushBeforeSizeOrTimeThreshold() throws Exception {
+        // given
+        var pipe = Pipe.open();
+        var queue = new OutboundQueue(new SizeClassedBufferPool(false), 1024, 100, Long.MAX_VALUE, new LongAdder());
+        queue.add(ByteBuffer.allocate(60));
+        // when
+        queue.flushIfDue(pipe.sink());
+        var pendingBelowThreshold = queue.pending();
+        queue.add(ByteBuffer.allocate(60));
+        queue.flushIfDue(pipe.sink());
+        // then
+        assertThat(pendingBelowThreshold).isEqualTo(60);
+        assertThat(queue.pending()).isZero();
+        assertThat(queue.writeCalls()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldKeepWhatFullChannelDidNotTake() throws Exception {
+        // given
+        var pipe = Pipe.open();
+        pipe.sink().configureBlocking(false);
+        var queue = new OutboundQueue(new SizeClassedBufferPool(false));
+        var data = ByteBuffer.allocate(4 * 1024 * 1024);
+        for (int i = 0; i < data.capacity(); i++) {
+            data.put(i, (byte) i);
+        }
+        queue.add(data);
+        // when
+        var flushedAtOnce = queue.flush(pipe.sink());
+        var received = ByteBuffer.allocate(data.capacity());
+        while (received.hasRemaining()) {
+            pipe.source().read(received);
+            queue.flush(pipe.sink());
+        }
+        // then
+        assertThat(flushedAtOnce).isFalse();
+        assertThat(queue.hasPending()).isFalse();
+        assertThat(received.flip()).isEqualTo(data.flip());
+        queue.close();
+    }
+}
@@ -0,0 +1,116 @@
+package com.mg.nio.load;
+
+import com.mg.nio.FreePortFinder;
+import com.mg.nio.SelectorEchoServer;
+import com.mg.nio.handler.Handler;
+import com.mg.nio.handler.UppercaseSelectionKeyHandler;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class LoadGeneratorTest {
+
+    @Test
+    public void shouldPipelineRequestsOverManyConnections() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var server = new SelectorEchoServer(port, new UppercaseSelectionKeyHandler(), serverReadyLatch::countDown);
+        server.start();
+        serverReadyLatch.await();
+        var profile = new LoadProfile(50, 100, 4, 0, Duration.ofSeconds(1));
+        // when
+        var report = new LoadGenerator(new InetSocketAddress("localhost", port), profile).run();
+        // then
+        assertThat(report.completedRequests()).isGreaterThan(1000);
+        assertThat(report.failedResponses()).isZero();
+        assertThat(report.latency().getTotalCount()).isEqualTo(report.completedRequests());
+
+        server.stop();
+    }
+
+    @Test
+    public void shouldSendAtTargetRate() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var server = new SelectorEchoServer(port, new UppercaseSelectionKeyHandler(), serverReadyLatch::countDown);
+        server.start();
+        serverReadyLatch.await();
+        var profile = new LoadProfile(10, 1000, 1, 500, Duration.ofSeconds(1));
+        // when
+        var report = new LoadGenerator(new InetSocketAddress("localhost", port), profile).run();
+        // then
+        assertThat(report.completedRequests()).isBetween(400L, 550L);
+        assertThat(report.failedResponses()).isZero();
+
+        server.stop();
+    }
+
+    @Test
+    public void shouldCountLatencyFromIntendedSendTimeWhenServerStalls() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var uppercaseHandler = new UppercaseSelectionKeyHandler();
+        var stalled = new CountDownLatch(1);
+        Handler<SelectionKey> stallingOnceHandler = key -> {
+            if (stalled.getCount() > 0) {
+                stalled.countDown();
+                sleep(Duration.ofMillis(500));
+            }
+            uppercaseHandler.handle(key);
+        };
+        var server = new SelectorEchoServer(port, stallingOnceHandler, serverReadyLatch::countDown);
+        server.start();
+        serverReadyLatch.await();
+        var profile = new LoadProfile(1, 10, 1, 100, Duration.ofSeconds(1));
+        // when
+        var report = new LoadGenerator(new InetSocketAddress("localhost", port), profile).run();
+        // then
+        assertThat(report.failedResponses()).isZero();
+        assertThat(report.latency().getValueAtPercentile(90)).isGreaterThan(Duration.ofMillis(100).toNanos());
+
+        server.stop();
+    }
+
+    @Test
+    public void shouldIncludeServerDelayInLatencyOfUnpacedRequests() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var uppercaseHandler = new UppercaseSelectionKeyHandler();
+        var delay = Duration.ofMillis(20);
+        Handler<SelectionKey> delayingHandler = key -> {
+            if (key.isReadable()) {
+                sleep(delay);
+            }
+            uppercaseHandler.handle(key);
+        };
+        var server = new SelectorEchoServer(port, delayingHandler, serverReadyLatch::countDown);
+        server.start();
+        serverReadyLatch.await();
+        var profile = new LoadProfile(1, 10, 1, 0, Duration.ofSeconds(1));
+        // when
+        var report = new LoadGenerator(new InetSocketAddress("localhost", port), profile).run();
+        // then
+        assertThat(report.failedResponses()).isZero();
+        assertThat(report.completedRequests()).isPositive();
+        assertThat(report.latency().getValueAtPercentile(50)).isGreaterThanOrEqualTo(delay.toNanos());
+
+        server.stop();
+    }
+
+    private static void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
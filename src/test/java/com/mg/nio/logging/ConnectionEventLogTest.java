@@ -0,0 +1,119 @@
+package com.mg.nio.logging;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConnectionEventLogTest {
+    private static final InetSocketAddress ADDRESS = new InetSocketAddress("localhost", 1234);
+
+    @Test
+    public void shouldDeliverEventsInOrderOnBackgroundThread() throws Exception {
+        // given
+        var received = new CopyOnWriteArrayList<ConnectionEvent>();
+        var threads = new CopyOnWriteArrayList<String>();
+        var eventLog = new ConnectionEventLog(16, 1, 1000, (event, address, timestamp, error) -> {
+            received.add(event);
+            threads.add(Thread.currentThread().getName());
+        });
+        // when
+        eventLog.record(ConnectionEvent.ACCEPTED, ADDRESS, null);
+        eventLog.record(ConnectionEvent.FAILED, ADDRESS, new IllegalStateException());
+        eventLog.record(ConnectionEvent.FINISHED, ADDRESS, null);
+        eventLog.close();
+        // then
+        assertThat(received).containsExactly(ConnectionEvent.ACCEPTED, ConnectionEvent.FAILED, ConnectionEvent.FINISHED);
+        assertThat(threads).containsOnly("connection-event-log");
+    }
+
+    @Test
+    public void shouldSampleConnections() throws Exception {
+        // given
+        var eventLog = new ConnectionEventLog(16, 4, 1000, (event, address, timestamp, error) -> {
+        });
+        // when
+        var sampled = 0;
+        for (int i = 0; i < 100; i++) {
+            if (eventLog.sampleConnection()) {
+                sampled++;
+            }
+        }
+        eventLog.close();
+        // then
+        assertThat(sampled).isEqualTo(25);
+    }
+
+    @Test
+    public void shouldDropEventsAboveRateLimit() throws Exception {
+        // given
+        var received = new AtomicInteger(0);
+        var eventLog = new ConnectionEventLog(1024, 1, 10, (event, address, timestamp, error) -> received.incrementAndGet());
+        // when
+        for (int i = 0; i < 100; i++) {
+            eventLog.record(ConnectionEvent.ACCEPTED, ADDRESS, null);
+        }
+        eventLog.close();
+        // then
+        assertThat(received.get() + eventLog.dropped()).isEqualTo(100);
+        assertThat(received.get()).isBetween(10, 20);
+    }
+
+    @Test
+    public void shouldDropEventsWhenRingIsFullInsteadOfBlocking() throws Exception {
+        // given
+        var sinkBlocked = new CountDownLatch(1);
+        var received = new AtomicInteger(0);
+        var eventLog = new ConnectionEventLog(4, 1, 1000, (event, address, timestamp, error) -> {
+            try {
+                sinkBlocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            received.incrementAndGet();
+        });
+        // when
+        for (int i = 0; i < 20; i++) {
+            eventLog.record(ConnectionEvent.ACCEPTED, ADDRESS, null);
+        }
+        sinkBlocked.countDown();
+        eventLog.close();
+        // then
+        assertThat(eventLog.dropped()).isGreaterThanOrEqualTo(15);
+        assertThat(received.get() + eventLog.dropped()).isEqualTo(20);
+    }
+
+    @Test
+    public void shouldNotLoseEventsFromConcurrentProducers() throws Exception {
+        // given
+        var received = new AtomicInteger(0);
+        var eventLog = new ConnectionEventLog(1 << 16, 1, Integer.MAX_VALUE, (event, address, timestamp, error) -> received.incrementAndGet());
+        var executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> producers = new ArrayList<>();
+        // when
+        for (int i = 0; i < 4; i++) {
+            producers.add(executor.submit(() -> {
+                for (int j = 0; j < 10_000; j++) {
+                    eventLog.record(ConnectionEvent.ACCEPTED, ADDRESS, null);
+                }
+            }));
+        }
+        for (var producer : producers) {
+            producer.get();
+        }
+        eventLog.close();
+        // then
+        assertThat(received.get() + eventLog.dropped()).isEqualTo(40_000);
+        assertThat(received.get()).isPositive();
+
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,64 @@
+package com.mg.nio.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void shouldReportSmallValuesExactly() {
+        // given
+        var histogram = new LatencyHistogram();
+        // when
+        for (int value = 1; value <= 100; value++) {
+            histogram.recordValue(value);
+        }
+        // then
+        assertThat(histogram.getTotalCount()).isEqualTo(100);
+        assertThat(histogram.getValueAtPercentile(50)).isEqualTo(50);
+        assertThat(histogram.getValueAtPercentile(99)).isEqualTo(99);
+        assertThat(histogram.getMaxValue()).isEqualTo(100);
+        assertThat(histogram.getMean()).isEqualTo(50.5);
+    }
+
+    @Test
+    public void shouldReportLargeValuesWithinRelativeError() {
+        // given
+        var histogram = new LatencyHistogram();
+        // when
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.recordValue(value * 1_000_000);
+        }
+        // then
+        assertThat((double) histogram.getValueAtPercentile(50)).isCloseTo(5_000_000_000.0, within(5_000_000_000.0 / 64));
+        assertThat((double) histogram.getValueAtPercentile(99.9)).isCloseTo(9_990_000_000.0, within(9_990_000_000.0 / 64));
+        assertThat(histogram.getValueAtPercentile(100)).isEqualTo(10_000_000_000L);
+    }
+
+    @Test
+    public void shouldBackfillValuesHiddenByStall() {
+        // given
+        var histogram = new LatencyHistogram();
+        // when
+        histogram.recordValueWithExpectedInterval(1_000, 100);
+        // then
+        assertThat(histogram.getTotalCount()).isEqualTo(10);
+        assertThat(histogram.getValueAtPercentile(50)).isBetween(500L, 507L);
+    }
+
+    @Test
+    public void shouldAddOtherHistogram() {
+        // given
+        var histogram = new LatencyHistogram();
+        var other = new LatencyHistogram();
+        histogram.recordValue(10);
+        other.recordValue(1_000);
+        // when
+        histogram.add(other);
+        // then
+        assertThat(histogram.getTotalCount()).isEqualTo(2);
+        assertThat(histogram.getMaxValue()).isEqualTo(1_000);
+    }
+}
@@ -0,0 +1,121 @@
+package com.mg.nio.metrics;
+
+import com.mg.nio.BlockingNewIoEchoServer;
+import com.mg.nio.FreePortFinder;
+import com.mg.nio.SelectorEchoServer;
+import com.mg.nio.handler.ExecutorServiceHandler;
+import com.mg.nio.handler.Handler;
+import com.mg.nio.handler.UppercaseNewIoHandler;
+import com.mg.nio.handler.UppercaseSelectionKeyHandler;
+import com.mg.nio.transform.UppercaseTransformer;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MetricsHandlerTest {
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        var deadline = System.nanoTime() + 5_000_000_000L;
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void shouldCountConnectionsAndBytes() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var executor = Executors.newFixedThreadPool(2);
+        var metrics = new ServerMetrics();
+        var objectName = metrics.register("metrics-test-" + port);
+        var meteredHandler = new MeteredChannelHandler<SocketChannel>(new UppercaseNewIoHandler()::handleChannel, metrics);
+        var handler = new ExecutorServiceHandler<>(new MetricsHandler<>(meteredHandler, metrics), executor, metrics);
+        var server = new BlockingNewIoEchoServer(port, handler, serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        // when
+        for (int i = 0; i < 3; i++) {
+            try (var socket = SocketChannel.open(new InetSocketAddress("localhost", port))) {
+                socket.write(ByteBuffer.wrap("hello".getBytes()));
+                socket.read(ByteBuffer.allocate(5));
+            }
+        }
+        awaitCondition(() -> metrics.getClosedConnections() == 3);
+        // then
+        var snapshot = metrics.snapshot();
+        assertThat(snapshot.acceptedConnections()).isEqualTo(3);
+        assertThat(snapshot.activeConnections()).isZero();
+        assertThat(snapshot.bytesIn()).isEqualTo(15);
+        assertThat(snapshot.bytesOut()).isEqualTo(15);
+        assertThat(snapshot.handlerLatencyMaxNanos()).isPositive();
+        assertThat(ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "AcceptedConnections")).isEqualTo(3L);
+
+        metrics.unregister(objectName);
+        server.stop();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldCountHandlerErrors() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var executor = Executors.newSingleThreadExecutor();
+        var metrics = new ServerMetrics();
+        Handler<SocketChannel> failingHandler = socket -> {
+            throw new IllegalStateException("handler failure");
+        };
+        var handler = new ExecutorServiceHandler<>(new MetricsHandler<>(failingHandler, metrics), executor);
+        var server = new BlockingNewIoEchoServer(port, handler, serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        // when
+        SocketChannel.open(new InetSocketAddress("localhost", port)).close();
+        awaitCondition(() -> metrics.getHandlerErrors() == 1);
+        // then
+        assertThat(metrics.getHandlerErrors()).isEqualTo(1);
+        assertThat(metrics.getActiveConnections()).isZero();
+
+        server.stop();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldCountBytesOfSelectorServer() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var metrics = new ServerMetrics();
+        var server = new SelectorEchoServer(port, new UppercaseSelectionKeyHandler(new UppercaseTransformer(), metrics), serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        // when
+        for (int i = 0; i < 3; i++) {
+            try (var socket = SocketChannel.open(new InetSocketAddress("localhost", port))) {
+                socket.write(ByteBuffer.wrap("hello".getBytes()));
+                var response = ByteBuffer.allocate(5);
+                while (response.hasRemaining()) {
+                    socket.read(response);
+                }
+            }
+        }
+        awaitCondition(() -> metrics.getBytesOut() == 15);
+        // then
+        assertThat(metrics.getBytesIn()).isEqualTo(15);
+        assertThat(metrics.getBytesOut()).isEqualTo(15);
+
+        server.stop();
+    }
+}
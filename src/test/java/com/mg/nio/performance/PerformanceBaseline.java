@@ -0,0 +1,59 @@
+package com.mg.nio.performance;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Results of an earlier run, read back from a report written by {@link PerformanceReport}, so a run can be held
+ * against the throughput and latency the same machine reached before.
+ */
+class PerformanceBaseline {
+    private static final Pattern ENTRY = Pattern.compile("\\{[^{}]*}");
+    private static final Pattern VARIANT = Pattern.compile("\"variant\": \"([^\"]+)\"");
+    private static final Pattern SCENARIO = Pattern.compile("\"scenario\": \"([^\"]+)\"");
+    private static final Pattern MEGABYTES_PER_SECOND = Pattern.compile("\"megabytesPerSecond\": ([0-9.]+)");
+    private static final Pattern LATENCY_P99_MICROS = Pattern.compile("\"latencyP99Micros\": ([0-9]+)");
+
+    record Result(double megabytesPerSecond, long latencyP99Micros) {
+    }
+
+    private final Map<String, Result> results;
+
+    private PerformanceBaseline(Map<String, Result> results) {
+        this.results = results;
+    }
+
+    static PerformanceBaseline none() {
+        return new PerformanceBaseline(Map.of());
+    }
+
+    static PerformanceBaseline read(Path report) throws IOException {
+        var results = new HashMap<String, Result>();
+        var entries = ENTRY.matcher(Files.readString(report));
+        while (entries.find()) {
+            var entry = entries.group();
+            var variant = VARIANT.matcher(entry);
+            var scenario = SCENARIO.matcher(entry);
+            var megabytesPerSecond = MEGABYTES_PER_SECOND.matcher(entry);
+            var latencyP99Micros = LATENCY_P99_MICROS.matcher(entry);
+            if (variant.find() && scenario.find() && megabytesPerSecond.find() && latencyP99Micros.find()) {
+                results.put(key(variant.group(1), scenario.group(1)),
+                        new Result(Double.parseDouble(megabytesPerSecond.group(1)), Long.parseLong(latencyP99Micros.group(1))));
+            }
+        }
+        return new PerformanceBaseline(results);
+    }
+
+    Optional<Result> get(String variant, String scenario) {
+        return Optional.ofNullable(results.get(key(variant, scenario)));
+    }
+
+    private static String key(String variant, String scenario) {
+        return variant + "/" + scenario;
+    }
+}
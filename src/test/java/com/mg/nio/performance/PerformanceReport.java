@@ -0,0 +1,59 @@
+package com.mg.nio.performance;
+
+import com.mg.nio.load.LoadReport;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Collects the results of a performance run and writes them as JSON, one entry per server variant and scenario,
+ * so reports of two builds can be diffed.
+ */
+class PerformanceReport {
+    private final List<String> entries = new ArrayList<>();
+
+    synchronized void add(String variant, String scenario, int connections, int payloadSize, LoadReport load,
+                          int threadGrowth, long peakHeapGrowthBytes, long retainedHeapBytes) {
+        var latency = load.latency();
+        entries.add(String.format(Locale.ROOT, """
+                    {
+                      "variant": "%s",
+                      "scenario": "%s",
+                      "connections": %d,
+                      "payloadSize": %d,
+                      "completedRequests": %d,
+                      "failedResponses": %d,
+                      "elapsedMillis": %d,
+                      "requestsPerSecond": %.1f,
+                      "megabytesPerSecond": %.1f,
+                      "latencyP50Micros": %d,
+                      "latencyP99Micros": %d,
+                      "latencyMaxMicros": %d,
+                      "threadGrowth": %d,
+                      "peakHeapGrowthBytes": %d,
+                      "retainedHeapBytes": %d
+                    }""",
+                variant, scenario, connections, payloadSize, load.completedRequests(), load.failedResponses(),
+                load.elapsed().toMillis(), load.requestsPerSecond(), load.megabytesPerSecond(),
+                latency.getValueAtPercentile(50) / 1000, latency.getValueAtPercentile(99) / 1000, latency.getMaxValue() / 1000,
+                threadGrowth, peakHeapGrowthBytes, retainedHeapBytes));
+    }
+
+    synchronized void write(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Files.writeString(file, String.format(Locale.ROOT, """
+                {
+                  "timestamp": "%s",
+                  "javaVersion": "%s",
+                  "availableProcessors": %d,
+                  "results": [
+                %s  ]
+                }
+                """, Instant.now(), Runtime.version(), Runtime.getRuntime().availableProcessors(), String.join(",\n", entries).indent(4)));
+    }
+}
@@ -0,0 +1,200 @@
+package com.mg.nio.performance;
+
+import com.mg.nio.AsyncEchoServer;
+import com.mg.nio.BlockingEchoServer;
+import com.mg.nio.BlockingNewIoEchoServer;
+import com.mg.nio.FreePortFinder;
+import com.mg.nio.MultiSelectorEchoServer;
+import com.mg.nio.SelectorEchoServer;
+import com.mg.nio.handler.AdaptiveHandler;
+import com.mg.nio.handler.UppercaseAsyncHandler;
+import com.mg.nio.handler.UppercaseHandler;
+import com.mg.nio.handler.UppercaseNewIoHandler;
+import com.mg.nio.handler.UppercaseSelectionKeyHandler;
+import com.mg.nio.load.LoadGenerator;
+import com.mg.nio.load.LoadProfile;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.slf4j.Logger;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryType;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.slf4j.LoggerFactory.getLogger;
+
+/**
+ * Performance regression suite, excluded from the default build. Run with {@code mvn test -Pperformance}.
+ * Results are written to {@code target/performance-report.json}. Throughput and p99 latency are held against the
+ * baseline report {@code src/test/resources/performance-baseline.json}: a run fails below
+ * {@code performance.minThroughputRatio} of the baseline throughput or above {@code performance.maxLatencyRatio}
+ * times its p99. The baseline was recorded with the default settings on a single core machine; point
+ * {@code performance.baseline} at the report of an earlier run on the same machine to compare against that instead.
+ * The absolute limits apply to variants missing from the baseline. Every limit can be overridden with a system
+ * property, e.g. {@code -Dperformance.maxP99Millis=500}.
+ */
+@Tag("performance")
+public class ServerPerformanceTest {
+    private static final Logger logger = getLogger(ServerPerformanceTest.class);
+    private static final PerformanceReport report = new PerformanceReport();
+    private static PerformanceBaseline baseline;
+
+    private static final Duration DURATION = Duration.ofSeconds(Long.getLong("performance.durationSeconds", 5));
+    private static final int MANY_CONNECTIONS = Integer.getInteger("performance.manyConnections", 2000);
+    private static final int MANY_CONNECTIONS_PAYLOAD = Integer.getInteger("performance.manyConnectionsPayload", 16 * 1024);
+    private static final int LARGE_PAYLOAD_CONNECTIONS = Integer.getInteger("performance.largePayloadConnections", 32);
+    private static final int LARGE_PAYLOAD = Integer.getInteger("performance.largePayload", 4 * 1024 * 1024);
+    private static final double MIN_MEGABYTES_PER_SECOND = Double.parseDouble(System.getProperty("performance.minMegabytesPerSecond", "50"));
+    private static final long MAX_P99_MILLIS = Long.getLong("performance.maxP99Millis", 2000);
+    private static final double MIN_THROUGHPUT_RATIO = Double.parseDouble(System.getProperty("performance.minThroughputRatio", "0.5"));
+    private static final double MAX_LATENCY_RATIO = Double.parseDouble(System.getProperty("performance.maxLatencyRatio", "2.5"));
+    private static final int MAX_THREAD_GROWTH = Integer.getInteger("performance.maxThreadGrowth", 64);
+    private static final long MAX_PEAK_HEAP_GROWTH_MEGABYTES = Long.getLong("performance.maxPeakHeapGrowthMegabytes", 256);
+    private static final long MAX_RETAINED_HEAP_MEGABYTES = Long.getLong("performance.maxRetainedHeapMegabytes", 64);
+
+    private enum Variant {
+        BLOCKING_VIRTUAL {
+            @Override
+            AutoCloseable start(int port, Runnable onStartedListening) {
+                var server = BlockingEchoServer.withVirtualThreadPerConnection(port, new UppercaseHandler(), onStartedListening);
+                server.start();
+                return () -> server.stop().get();
+            }
+        },
+        NEW_IO_VIRTUAL {
+            @Override
+            AutoCloseable start(int port, Runnable onStartedListening) {
+                var server = BlockingNewIoEchoServer.withVirtualThreadPerConnection(port, new UppercaseNewIoHandler(), onStartedListening);
+                server.start();
+                return () -> server.stop().get();
+            }
+        },
+        SELECTOR {
+            @Override
+            AutoCloseable start(int port, Runnable onStartedListening) {
+                var server = new SelectorEchoServer(port, new UppercaseSelectionKeyHandler(), onStartedListening);
+                server.start();
+                return () -> server.stop().get();
+            }
+        },
+        MULTI_SELECTOR {
+            @Override
+            AutoCloseable start(int port, Runnable onStartedListening) {
+                var server = new MultiSelectorEchoServer(port, new UppercaseSelectionKeyHandler(), onStartedListening);
+                server.start();
+                return () -> server.stop().get();
+            }
+        },
+        ASYNC {
+            @Override
+            AutoCloseable start(int port, Runnable onStartedListening) {
+                var server = new AsyncEchoServer(port, new UppercaseAsyncHandler(), onStartedListening);
+                server.start();
+                return () -> server.stop().get();
+            }
+        },
+        ADAPTIVE {
+            @Override
+            AutoCloseable start(int port, Runnable onStartedListening) {
+                var handler = new AdaptiveHandler(32);
+                var server = new BlockingNewIoEchoServer(port, handler, onStartedListening);
+                server.start();
+                return () -> {
+                    server.stop().get();
+                    handler.close();
+                };
+            }
+        };
+
+        abstract AutoCloseable start(int port, Runnable onStartedListening) throws Exception;
+    }
+
+    @BeforeAll
+    public static void readBaseline() throws Exception {
+        var path = Path.of(System.getProperty("performance.baseline", "src/test/resources/performance-baseline.json"));
+        baseline = Files.exists(path) ? PerformanceBaseline.read(path) : PerformanceBaseline.none();
+        logger.info("Comparing against baseline {}", path);
+    }
+
+    @AfterAll
+    public static void writeReport() throws Exception {
+        report.write(Path.of(System.getProperty("performance.report", "target/performance-report.json")));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Variant.class)
+    public void shouldServeThousandsOfConnections(Variant variant) throws Exception {
+        run(variant, "many-connections", new LoadProfile(MANY_CONNECTIONS, MANY_CONNECTIONS_PAYLOAD, 1, 0, DURATION));
+    }
+
+    @ParameterizedTest
+    @EnumSource(Variant.class)
+    public void shouldServeMultiMegabytePayloads(Variant variant) throws Exception {
+        run(variant, "large-payloads", new LoadProfile(LARGE_PAYLOAD_CONNECTIONS, LARGE_PAYLOAD, 1, 0, DURATION));
+    }
+
+    private void run(Variant variant, String scenario, LoadProfile profile) throws Exception {
+        // given
+        var threads = ManagementFactory.getThreadMXBean();
+        var memory = ManagementFactory.getMemoryMXBean();
+        System.gc();
+        var heapBefore = memory.getHeapMemoryUsage().getUsed();
+        resetPeakHeapUsage();
+        var threadsBefore = threads.getThreadCount();
+        threads.resetPeakThreadCount();
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var server = variant.start(port, serverReadyLatch::countDown);
+        serverReadyLatch.await();
+        // when
+        var load = new LoadGenerator(new InetSocketAddress("localhost", port), profile).run();
+        var threadGrowth = threads.getPeakThreadCount() - threadsBefore;
+        var peakHeapGrowth = peakHeapUsage() - heapBefore;
+        server.close();
+        System.gc();
+        var retainedHeap = memory.getHeapMemoryUsage().getUsed() - heapBefore;
+        report.add(variant.name(), scenario, profile.connections(), profile.payloadSize(), load, threadGrowth, peakHeapGrowth, retainedHeap);
+        logger.info("{} {}: {}, {} new threads, heap peaked {} bytes above start, {} bytes retained after stop",
+                variant, scenario, load, threadGrowth, peakHeapGrowth, retainedHeap);
+        var previous = baseline.get(variant.name(), scenario);
+        var minMegabytesPerSecond = previous.map(result -> result.megabytesPerSecond() * MIN_THROUGHPUT_RATIO).orElse(MIN_MEGABYTES_PER_SECOND);
+        var maxP99Nanos = previous.map(result -> (long) (result.latencyP99Micros() * 1000 * MAX_LATENCY_RATIO)).orElse(Duration.ofMillis(MAX_P99_MILLIS).toNanos());
+        // then
+        assertThat(load.failedResponses()).isZero();
+        assertThat(load.megabytesPerSecond()).isGreaterThanOrEqualTo(minMegabytesPerSecond);
+        assertThat(load.latency().getValueAtPercentile(99)).isLessThanOrEqualTo(maxP99Nanos);
+        assertThat(threadGrowth).isLessThanOrEqualTo(MAX_THREAD_GROWTH);
+        assertThat(peakHeapGrowth).isLessThanOrEqualTo(MAX_PEAK_HEAP_GROWTH_MEGABYTES * 1024 * 1024);
+        assertThat(retainedHeap).isLessThanOrEqualTo(MAX_RETAINED_HEAP_MEGABYTES * 1024 * 1024);
+    }
+
+    private static void resetPeakHeapUsage() {
+        for (var pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                pool.resetPeakUsage();
+            }
+        }
+    }
+
+    /**
+     * Sum of the peaks of every heap pool since the last reset. Pools peak at different moments, so this is an upper
+     * bound of the heap in use at any one time, including garbage not yet collected.
+     */
+    private static long peakHeapUsage() {
+        var peak = 0L;
+        for (var pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+}
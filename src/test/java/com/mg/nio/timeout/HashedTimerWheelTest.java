@@ -0,0 +1,81 @@
+package com.mg.nio.timeout;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HashedTimerWheelTest {
+    private static final long TICK = Duration.ofMillis(1).toNanos();
+
+    private static class RecordingTimeout extends HashedTimerWheel.Timeout {
+        private final String name;
+        private final List<String> expired;
+
+        private RecordingTimeout(String name, List<String> expired) {
+            this.name = name;
+            this.expired = expired;
+        }
+
+        @Override
+        protected void expire(long nowNanos) {
+            expired.add(name);
+        }
+    }
+
+    @Test
+    public void shouldExpireOnlyTimeoutsPastTheirDeadline() {
+        // given
+        var wheel = new HashedTimerWheel(Duration.ofNanos(TICK), 8);
+        var expired = new ArrayList<String>();
+        var now = System.nanoTime();
+        wheel.schedule(new RecordingTimeout("soon", expired), now + 2 * TICK);
+        wheel.schedule(new RecordingTimeout("later", expired), now + 5 * TICK);
+        // when
+        var expiredAtFirst = wheel.advance(now + 3 * TICK);
+        var expiredAtSecond = wheel.advance(now + 6 * TICK);
+        // then
+        assertThat(expiredAtFirst).isEqualTo(1);
+        assertThat(expiredAtSecond).isEqualTo(1);
+        assertThat(expired).containsExactly("soon", "later");
+    }
+
+    @Test
+    public void shouldKeepTimeoutsSpanningSeveralRotations() {
+        // given
+        var wheel = new HashedTimerWheel(Duration.ofNanos(TICK), 8);
+        var expired = new ArrayList<String>();
+        var now = System.nanoTime();
+        wheel.schedule(new RecordingTimeout("far", expired), now + 20 * TICK);
+        // when
+        for (int tick = 1; tick < 20; tick++) {
+            wheel.advance(now + tick * TICK);
+        }
+        var expiredBeforeDeadline = new ArrayList<>(expired);
+        wheel.advance(now + 21 * TICK);
+        // then
+        assertThat(expiredBeforeDeadline).isEmpty();
+        assertThat(expired).containsExactly("far");
+    }
+
+    @Test
+    public void shouldNotExpireCancelledOrRescheduledTimeouts() {
+        // given
+        var wheel = new HashedTimerWheel(Duration.ofNanos(TICK), 8);
+        var expired = new ArrayList<String>();
+        var now = System.nanoTime();
+        var cancelled = new RecordingTimeout("cancelled", expired);
+        var rescheduled = new RecordingTimeout("rescheduled", expired);
+        wheel.schedule(cancelled, now + 2 * TICK);
+        wheel.schedule(rescheduled, now + 2 * TICK);
+        // when
+        wheel.cancel(cancelled);
+        wheel.schedule(rescheduled, now + 10 * TICK);
+        wheel.advance(now + 5 * TICK);
+        // then
+        assertThat(expired).isEmpty();
+    }
+}
@@ -0,0 +1,216 @@
+package com.mg.nio.tls;
+
+import com.mg.nio.BlockingNewIoEchoServer;
+import com.mg.nio.FreePortFinder;
+import com.mg.nio.SelectorEchoServer;
+import com.mg.nio.buffer.SizeClassedBufferPool;
+import com.mg.nio.handler.UppercaseNewIoHandler;
+import com.mg.nio.handler.VirtualThreadHandler;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class TlsChannelTest {
+    private static final char[] PASSWORD = "changeit".toCharArray();
+
+    @TempDir
+    static Path keystoreDir;
+    private static SSLContext serverContext;
+    private static SSLContext clientContext;
+
+    private static class Connection implements AutoCloseable {
+        private final SSLSocket socket;
+
+        private Connection(SSLSocket socket) {
+            this.socket = socket;
+        }
+
+        private static Connection open(int port, String... protocols) throws IOException {
+            var socket = (SSLSocket) clientContext.getSocketFactory().createSocket("localhost", port);
+            socket.setEnabledProtocols(protocols.length == 0 ? new String[]{TlsChannel.PROTOCOL} : protocols);
+            socket.startHandshake();
+            return new Connection(socket);
+        }
+
+        public byte[] sendAndReceive(byte[] data) throws Exception {
+            var writer = Thread.ofVirtual().start(() -> {
+                try {
+                    socket.getOutputStream().write(data);
+                    socket.getOutputStream().flush();
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            var received = socket.getInputStream().readNBytes(data.length);
+            writer.join();
+            return received;
+        }
+
+        public String protocol() {
+            return socket.getSession().getProtocol();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    @BeforeAll
+    public static void createSelfSignedCertificate() throws Exception {
+        var keystore = keystoreDir.resolve("server.p12");
+        var keytool = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "keytool").toString(),
+                "-genkeypair", "-alias", "server", "-keyalg", "EC", "-groupname", "secp256r1",
+                "-dname", "CN=localhost", "-validity", "1", "-storetype", "PKCS12",
+                "-keystore", keystore.toString(), "-storepass", new String(PASSWORD))
+                .inheritIO()
+                .start();
+        assertThat(keytool.waitFor()).isZero();
+
+        var keyStore = KeyStore.getInstance("PKCS12");
+        try (var in = Files.newInputStream(keystore)) {
+            keyStore.load(in, PASSWORD);
+        }
+        var keyManagers = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagers.init(keyStore, PASSWORD);
+        serverContext = SSLContext.getInstance("TLS");
+        serverContext.init(keyManagers.getKeyManagers(), null, null);
+
+        var trustManagers = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagers.init(keyStore);
+        clientContext = SSLContext.getInstance("TLS");
+        clientContext.init(null, trustManagers.getTrustManagers(), null);
+    }
+
+    @Test
+    public void shouldMakeUppercaseOverTlsOnBlockingServer() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var handler = new TlsHandler(serverContext, new UppercaseNewIoHandler()::handleChannel);
+        var server = new BlockingNewIoEchoServer(port, new VirtualThreadHandler<>(handler), serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        // when
+        try (var connection = Connection.open(port)) {
+            var received = connection.sendAndReceive("hello over tls".getBytes());
+            // then
+            assertThat(new String(received)).isEqualTo("HELLO OVER TLS");
+            assertThat(connection.protocol()).isEqualTo("TLSv1.3");
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void shouldMakeUppercaseLargePayloadOverTlsOnSelectorServer() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var server = new SelectorEchoServer(port, new TlsSelectionKeyHandler(serverContext), serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        var payload = new byte[4 * 1024 * 1024];
+        Arrays.fill(payload, (byte) 'a');
+        var expected = new byte[payload.length];
+        Arrays.fill(expected, (byte) 'A');
+        // when
+        try (var first = Connection.open(port); var second = Connection.open(port)) {
+            var firstReceived = first.sendAndReceive(payload);
+            var secondReceived = second.sendAndReceive("second".getBytes());
+            // then
+            assertThat(firstReceived).isEqualTo(expected);
+            assertThat(new String(secondReceived)).isEqualTo("SECOND");
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void shouldRejectClientsBelowTls13() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var server = new SelectorEchoServer(port, new TlsSelectionKeyHandler(serverContext), serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        // when
+        try {
+            // then
+            assertThatThrownBy(() -> Connection.open(port, "TLSv1.2").close()).isInstanceOf(SSLException.class);
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void shouldReleaseBuffersWhenHandshakeCannotBegin() throws Exception {
+        // given
+        var pool = new SizeClassedBufferPool(false);
+        var engineWithoutMode = serverContext.createSSLEngine();
+        // when
+        try (var socket = SocketChannel.open()) {
+            // then
+            assertThatThrownBy(() -> new TlsChannel(socket, engineWithoutMode, pool)).isInstanceOf(IllegalStateException.class);
+        }
+        assertThat(pool.outstanding()).isZero();
+    }
+
+    @Test
+    public void shouldReportTruncationWhenPeerClosesWithoutCloseNotify() throws Exception {
+        // given
+        var pool = new SizeClassedBufferPool(false);
+        try (var serverSocket = ServerSocketChannel.open().bind(new InetSocketAddress("localhost", 0))) {
+            var rawClient = new Socket("localhost", serverSocket.socket().getLocalPort());
+            var client = (SSLSocket) clientContext.getSocketFactory().createSocket(rawClient, "localhost", rawClient.getPort(), true);
+            client.setEnabledProtocols(new String[]{TlsChannel.PROTOCOL});
+            try (var accepted = serverSocket.accept(); var server = new TlsChannel(accepted, TlsChannel.serverEngine(serverContext), pool)) {
+                var writer = Thread.ofVirtual().start(() -> {
+                    try {
+                        client.getOutputStream().write("hello".getBytes());
+                        client.getOutputStream().flush();
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+                var received = ByteBuffer.allocate(5);
+                while (received.hasRemaining()) {
+                    server.read(received);
+                }
+                writer.join();
+                server.write(ByteBuffer.wrap("HELLO".getBytes()));
+                client.getInputStream().readNBytes(5);
+                // when
+                rawClient.close();
+                // then
+                assertThat(new String(received.array())).isEqualTo("hello");
+                assertThatThrownBy(() -> server.read(ByteBuffer.allocate(16))).isInstanceOf(SSLException.class);
+            }
+        }
+        assertThat(pool.outstanding()).isZero();
+    }
+}
@@ -0,0 +1,135 @@
+package com.mg.nio.transform;
+
+import com.mg.nio.BlockingNewIoEchoServer;
+import com.mg.nio.FreePortFinder;
+import com.mg.nio.handler.UppercaseNewIoHandler;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CachingTransformerTest {
+
+    private static String transform(ByteTransformer transformer, String payload, boolean direct) {
+        var bytes = payload.getBytes(StandardCharsets.ISO_8859_1);
+        var buffer = direct ? ByteBuffer.allocateDirect(64) : ByteBuffer.allocate(64);
+        buffer.position(3).put(bytes).flip().position(3);
+        transformer.transform(buffer);
+        var result = new byte[buffer.remaining()];
+        buffer.get(result);
+        return new String(result, StandardCharsets.ISO_8859_1);
+    }
+
+    @Test
+    public void shouldServeRepeatedPayloadFromCache() {
+        // given
+        var transformer = new CachingTransformer(new UppercaseTransformer(), 1024, 1024 * 1024);
+        // when
+        var first = transform(transformer, "hello", false);
+        var second = transform(transformer, "hello", true);
+        var other = transform(transformer, "world", true);
+        // then
+        assertThat(first).isEqualTo("HELLO");
+        assertThat(second).isEqualTo("HELLO");
+        assertThat(other).isEqualTo("WORLD");
+        assertThat(transformer.hits()).isEqualTo(1);
+        assertThat(transformer.misses()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldServeCachedResponseLongerThanRequestWhenBufferHasRoom() {
+        // given
+        ByteTransformer exclaiming = buffer -> {
+            var end = buffer.limit();
+            buffer.limit(end + 1).put(end, (byte) '!');
+        };
+        var transformer = new CachingTransformer(exclaiming, 1024, 1024 * 1024);
+        // when
+        var first = transform(transformer, "hello", false);
+        var second = transform(transformer, "hello", true);
+        // then
+        assertThat(first).isEqualTo("hello!");
+        assertThat(second).isEqualTo("hello!");
+        assertThat(transformer.hits()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedPayloadOverBudget() {
+        // given
+        var transformer = new CachingTransformer(new UppercaseTransformer(), 1024, 20, 1);
+        transform(transformer, "aaaa", false);
+        transform(transformer, "bbbb", false);
+        transform(transformer, "aaaa", false);
+        // when
+        transform(transformer, "cccc", false);
+        transform(transformer, "aaaa", false);
+        transform(transformer, "bbbb", false);
+        // then
+        assertThat(transformer.evictions()).isEqualTo(2);
+        assertThat(transformer.hits()).isEqualTo(2);
+        assertThat(transformer.cachedBytes()).isLessThanOrEqualTo(20);
+    }
+
+    @Test
+    public void shouldNotCachePayloadsAboveSizeLimit() {
+        // given
+        var transformer = new CachingTransformer(new UppercaseTransformer(), 4, 1024);
+        // when
+        var result = transform(transformer, "hello", false);
+        transform(transformer, "hello", false);
+        // then
+        assertThat(result).isEqualTo("HELLO");
+        assertThat(transformer.hits()).isZero();
+        assertThat(transformer.misses()).isZero();
+        assertThat(transformer.cachedBytes()).isZero();
+    }
+
+    @Test
+    public void shouldNotCachePayloadsAboveShareOfStripe() {
+        // given
+        var transformer = new CachingTransformer(new UppercaseTransformer(), 1024, 16, 2);
+        // when
+        var result = transform(transformer, "hello", false);
+        transform(transformer, "hello", false);
+        transform(transformer, "abc", false);
+        // then
+        assertThat(result).isEqualTo("HELLO");
+        assertThat(transformer.hits()).isZero();
+        assertThat(transformer.misses()).isEqualTo(3);
+        assertThat(transformer.cachedBytes()).isEqualTo(6);
+    }
+
+    @Test
+    public void shouldAnswerRepeatedMessagesFromCacheThroughHandler() throws Exception {
+        // given
+        var port = FreePortFinder.getFreePort();
+        var serverReadyLatch = new CountDownLatch(1);
+        var transformer = new CachingTransformer(new UppercaseTransformer(), 1024, 1024 * 1024);
+        var server = BlockingNewIoEchoServer.withVirtualThreadPerConnection(port, new UppercaseNewIoHandler(transformer), serverReadyLatch::countDown);
+        server.start();
+
+        serverReadyLatch.await();
+        var response = ByteBuffer.allocate(5);
+        // when
+        try (var socket = SocketChannel.open(new InetSocketAddress("localhost", port))) {
+            for (int i = 0; i < 100; i++) {
+                socket.write(ByteBuffer.wrap("hello".getBytes()));
+                response.clear();
+                while (response.hasRemaining()) {
+                    socket.read(response);
+                }
+            }
+        }
+        // then
+        assertThat(new String(response.array())).isEqualTo("HELLO");
+        assertThat(transformer.misses()).isEqualTo(1);
+        assertThat(transformer.hits()).isEqualTo(99);
+
+        server.stop();
+    }
+}
@@ -0,0 +1,63 @@
+package com.mg.nio.transform;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class UppercaseTransformerTest {
+
+    private static byte[] allBytes() {
+        var data = new byte[256];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        return data;
+    }
+
+    private static byte[] expectedUppercase(byte[] data) {
+        var expected = new byte[data.length];
+        for (int i = 0; i < data.length; i++) {
+            expected[i] = (byte) UppercaseTransformer.uppercase(data[i] & 0xFF);
+        }
+        return expected;
+    }
+
+    @Test
+    public void shouldUppercaseHeapBuffer() {
+        // given
+        var data = allBytes();
+        var buffer = ByteBuffer.wrap(data.clone());
+        // when
+        new UppercaseTransformer().transform(buffer);
+        // then
+        assertThat(buffer.array()).isEqualTo(expectedUppercase(data));
+        assertThat(buffer.position()).isZero();
+    }
+
+    @Test
+    public void shouldUppercaseDirectBuffer() {
+        // given
+        var data = allBytes();
+        var buffer = ByteBuffer.allocateDirect(data.length).put(data).flip();
+        // when
+        new UppercaseTransformer().transform(buffer);
+        // then
+        var transformed = new byte[data.length];
+        buffer.get(transformed);
+        assertThat(transformed).isEqualTo(expectedUppercase(data));
+    }
+
+    @Test
+    public void shouldOnlyTransformBetweenPositionAndLimit() {
+        // given
+        var buffer = ByteBuffer.wrap("hello world".getBytes()).position(6).limit(9);
+        // when
+        new UppercaseTransformer().transform(buffer);
+        // then
+        assertThat(new String(buffer.array())).isEqualTo("hello WORld");
+        assertThat(buffer.position()).isEqualTo(6);
+        assertThat(buffer.limit()).isEqualTo(9);
+    }
+}
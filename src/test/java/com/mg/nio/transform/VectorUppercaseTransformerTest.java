@@ -0,0 +1,70 @@
+package com.mg.nio.transform;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class VectorUppercaseTransformerTest {
+
+    private static byte[] randomBytes(int length) {
+        var data = new byte[length];
+        new Random(length).nextBytes(data);
+        return data;
+    }
+
+    private static byte[] scalarUppercase(byte[] data) {
+        var expected = data.clone();
+        new UppercaseTransformer().transform(ByteBuffer.wrap(expected));
+        return expected;
+    }
+
+    @Test
+    public void shouldMatchScalarTransformerForEveryByteValue() {
+        // given
+        var data = new byte[256 * 4];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        var buffer = ByteBuffer.wrap(data.clone());
+        // when
+        new VectorUppercaseTransformer().transform(buffer);
+        // then
+        assertThat(buffer.array()).isEqualTo(scalarUppercase(data));
+    }
+
+    @Test
+    public void shouldMatchScalarTransformerForLengthsNotMultipleOfVectorLength() {
+        for (int length = 0; length < 200; length++) {
+            // given
+            var data = randomBytes(length);
+            var buffer = ByteBuffer.wrap(data.clone());
+            // when
+            new VectorUppercaseTransformer().transform(buffer);
+            // then
+            assertThat(buffer.array()).isEqualTo(scalarUppercase(data));
+        }
+    }
+
+    @Test
+    public void shouldMatchScalarTransformerForDirectBufferLargerThanChunk() {
+        // given
+        var data = randomBytes(100_003);
+        var buffer = ByteBuffer.allocateDirect(data.length + 10).position(5);
+        buffer.put(data).flip().position(5);
+        // when
+        new VectorUppercaseTransformer().transform(buffer);
+        // then
+        var transformed = new byte[data.length];
+        buffer.get(transformed);
+        assertThat(transformed).isEqualTo(scalarUppercase(data));
+    }
+
+    @Test
+    public void shouldCreateVectorTransformerWhenModuleIsAvailable() {
+        assertThat(UppercaseTransformer.create(true)).isInstanceOf(VectorUppercaseTransformer.class);
+        assertThat(UppercaseTransformer.create(false)).isInstanceOf(UppercaseTransformer.class);
+    }
+}